@@ -0,0 +1,55 @@
+package de.svs;
+
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.kubernetes.client.WithKubernetesTestServer;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the JMH benchmarks of src/benchmark/java against a running activator with MongoDB in a container
+ * and the fabric8 mock server, started like for any other test.
+ * <p>
+ * The benchmarks run in this JVM (no forks), so they can look up the beans of the application through Arc.
+ * Results are written to target/jmh-result.json, which can be compared between commits, e.g. with jmh.morethan.io.
+ * <pre>
+ * ./mvnw test -Pbenchmark
+ * ./mvnw test -Pbenchmark -Dbenchmark.include=ReconciliationBenchmark -Dbenchmark.iterations=3
+ * </pre>
+ */
+@WithKubernetesTestServer
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class ActivatorBenchmarks {
+
+    @Test
+    void run() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(System.getProperty("benchmark.include", "de\\.svs\\..*Benchmark\\."))
+                .forks(0)
+                .threads(Integer.getInteger("benchmark.threads", 4))
+                .warmupIterations(Integer.getInteger("benchmark.warmupIterations", 3))
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(Integer.getInteger("benchmark.iterations", 5))
+                .measurementTime(TimeValue.seconds(5))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("benchmark.result", "target/jmh-result.json"))
+                .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+
+        assertThat(results).isNotEmpty();
+    }
+}
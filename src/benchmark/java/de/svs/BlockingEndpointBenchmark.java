@@ -0,0 +1,83 @@
+package de.svs;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.jboss.logging.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+
+/**
+ * Many concurrent clients against an endpoint that blocks on MongoDB, over HTTP.
+ * <p>
+ * Run it once on virtual threads and once on the worker pool to compare them:
+ * <pre>
+ * ./mvnw test -Pbenchmark -Dbenchmark.include=BlockingEndpointBenchmark -Dbenchmark.result=target/jmh-virtual.json
+ * ./mvnw test -Pbenchmark -Dbenchmark.include=BlockingEndpointBenchmark -Dbenchmark.result=target/jmh-worker.json -Dquarkus.virtual-threads.enabled=false
+ * </pre>
+ * The peak number of platform threads is logged after each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(256)
+public class BlockingEndpointBenchmark {
+
+    private static final Logger logger = Logger.getLogger(BlockingEndpointBenchmark.class);
+    private static final int NAMESPACES = 1000;
+
+    HttpClient httpClient;
+    String baseUri;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Namespace.extendOrCreateAll(IntStream.range(0, NAMESPACES).mapToObj(i -> "blocking-" + i).toList(), Instant.now().plus(1, DAYS));
+        int port = ConfigProvider.getConfig().getOptionalValue("quarkus.http.test-port", Integer.class).orElse(8081);
+        baseUri = "http://localhost:" + port + "/namespace";
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        logger.info("peak thread count: " + ManagementFactory.getThreadMXBean().getPeakThreadCount()
+                + ", virtual threads enabled: " + ConfigProvider.getConfig().getValue("quarkus.virtual-threads.enabled", String.class));
+        httpClient.close();
+    }
+
+    @Benchmark
+    public int post() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("namespace=" + randomName() + "&action=ACTIVATE"))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static String randomName() {
+        return "blocking-" + ThreadLocalRandom.current().nextInt(NAMESPACES);
+    }
+}
@@ -0,0 +1,68 @@
+package de.svs;
+
+import de.svs.cache.NamespaceActivationCache;
+import io.quarkus.arc.Arc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+
+/**
+ * Request paths of {@link NamespaceController} that are hit by KEDA and the CI pipelines, called on the bean directly.
+ * extendAndWait is measured up to the point where the status stream is handed to the HTTP layer,
+ * waiting for the namespace itself is not part of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NamespaceControllerBenchmark {
+
+    @Param({"100", "10000"})
+    int inventory;
+
+    NamespaceController namespaceController;
+    List<String> names;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Namespace.deleteAll();
+        names = IntStream.range(0, inventory).mapToObj(i -> "benchmark-" + i).toList();
+        Namespace.extendOrCreateAll(names, Instant.now().plus(1, DAYS));
+        Arc.container().instance(NamespaceActivationCache.class).get().reload();
+        namespaceController = Arc.container().instance(NamespaceController.class).get();
+    }
+
+    @Benchmark
+    public Object isNamespaceActive() {
+        return namespaceController.isNamespaceActive(randomName()).await().indefinitely();
+    }
+
+    @Benchmark
+    public Object post() {
+        return namespaceController.post(randomName(), Action.ACTIVATE);
+    }
+
+    @Benchmark
+    public Object extendAndWait() {
+        NamespaceDto dto = new NamespaceDto();
+        dto.setName(randomName());
+        return namespaceController.extendAndWait(dto);
+    }
+
+    private String randomName() {
+        return names.get(ThreadLocalRandom.current().nextInt(names.size()));
+    }
+}
@@ -0,0 +1,88 @@
+package de.svs;
+
+import io.quarkus.arc.Arc;
+import io.smallrye.mutiny.Uni;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+
+/**
+ * Blocking {@link Namespace} against {@link ReactiveNamespaceRepository} with many lookups in flight at once,
+ * like concurrent KEDA polls that miss the cache.
+ * <p>
+ * The blocking variant is limited by its pool of 20 threads, the size of a small worker pool. The reactive variant
+ * issues all lookups from one thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+public class ReactiveMongoBenchmark {
+
+    private static final int NAMESPACES = 1000;
+
+    @Param({"100", "1000"})
+    int inFlight;
+
+    ReactiveNamespaceRepository reactiveNamespaceRepository;
+    ExecutorService workerPool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Namespace.extendOrCreateAll(IntStream.range(0, NAMESPACES).mapToObj(i -> "reactive-" + i).toList(), Instant.now().plus(1, DAYS));
+        reactiveNamespaceRepository = Arc.container().instance(ReactiveNamespaceRepository.class).get();
+        workerPool = Executors.newFixedThreadPool(20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        workerPool.shutdownNow();
+    }
+
+    @Benchmark
+    public int blocking() throws ExecutionException, InterruptedException {
+        List<Future<?>> lookups = new ArrayList<>(inFlight);
+        for (int i = 0; i < inFlight; i++) {
+            String name = randomName();
+            lookups.add(workerPool.submit(() -> Namespace.findByName(name)));
+        }
+        for (Future<?> lookup : lookups) {
+            lookup.get();
+        }
+        return lookups.size();
+    }
+
+    @Benchmark
+    public int reactive() {
+        List<Uni<Namespace>> lookups = new ArrayList<>(inFlight);
+        for (int i = 0; i < inFlight; i++) {
+            lookups.add(reactiveNamespaceRepository.findByName(randomName()));
+        }
+        return Uni.join().all(lookups).andFailFast().await().indefinitely().size();
+    }
+
+    private static String randomName() {
+        return "reactive-" + ThreadLocalRandom.current().nextInt(NAMESPACES);
+    }
+}
@@ -0,0 +1,37 @@
+package de.svs;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import de.svs.status.StatusDto;
+import io.quarkus.arc.Arc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a status into the SSE event sent to every waiting client, once per probe tick and namespace.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SseEventBenchmark {
+
+    NamespaceActivationWaiter namespaceActivationWaiter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        namespaceActivationWaiter = Arc.container().instance(NamespaceActivationWaiter.class).get();
+    }
+
+    @Benchmark
+    public Object toSseEvent() throws JsonProcessingException {
+        return namespaceActivationWaiter.toSseEvent(
+                new StatusDto("benchmark", "/version is available ...", "https://benchmark.example.com", true, false));
+    }
+}
@@ -0,0 +1,66 @@
+package de.svs.scheduling;
+
+import de.svs.Namespace;
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.quarkus.arc.Arc;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static java.time.temporal.ChronoUnit.MINUTES;
+
+/**
+ * A full run of {@link DeleteDeactivatedNamespaces#cleanup} and {@link DeleteDeactivatedNamespaces#resync} over a synthetic inventory.
+ * All namespaces exist in Kubernetes and are still active, so every run does the same work without changing anything.
+ * Setting up the larger inventories in the mock server takes a while.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(1)
+public class ReconciliationBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    int inventory;
+
+    DeleteDeactivatedNamespaces deleteDeactivatedNamespaces;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        KubernetesClient kubernetesClient = Arc.container().instance(KubernetesClient.class).get();
+        Namespace.deleteAll();
+        kubernetesClient.namespaces().delete();
+
+        int createdAt = (int) Instant.now().minus(15, MINUTES).getEpochSecond();
+        List<Namespace> namespaces = new ArrayList<>();
+        for (int i = 0; i < inventory; i++) {
+            Namespace namespace = Namespace.create("benchmark-" + i, Instant.now().plus(1, DAYS));
+            namespace.id = new ObjectId(createdAt, i);
+            namespaces.add(namespace);
+            kubernetesClient.resource(new NamespaceBuilder().withNewMetadata().withName(namespace.name).and().build()).create();
+        }
+        Namespace.persist(namespaces);
+        deleteDeactivatedNamespaces = Arc.container().instance(DeleteDeactivatedNamespaces.class).get();
+    }
+
+    @Benchmark
+    public void syncAndCleanup() {
+        deleteDeactivatedNamespaces.cleanup(null);
+        deleteDeactivatedNamespaces.resync(null);
+    }
+}
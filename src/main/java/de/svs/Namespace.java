@@ -1,12 +1,19 @@
 package de.svs;
 
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
 import io.quarkus.mongodb.panache.PanacheMongoEntityBase;
 import io.quarkus.mongodb.panache.common.MongoEntity;
 import org.bson.codecs.pojo.annotations.BsonId;
 import org.bson.types.ObjectId;
 
 import java.time.Instant;
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -29,21 +36,71 @@ public class Namespace extends PanacheMongoEntityBase {
         this.activatedUntil = activatedUntil.isAfter(this.activatedUntil) ? activatedUntil : this.activatedUntil;
     }
 
-    public static Optional<Namespace> findByName(String name) {
-        return find("name", name).singleResultOptional();
+    /**
+     * Sets activatedUntil to the later of the stored and the given value with a single atomic update,
+     * so concurrent extensions of different replicas cannot overwrite each other.
+     *
+     * @return the namespace after the update, empty if there is no namespace with that name
+     */
+    public static Optional<Namespace> extendActivatedUntil(String name, Instant activatedUntil) {
+        return Optional.ofNullable(Namespace.<Namespace>mongoCollection().findOneAndUpdate(
+                Filters.eq("name", name),
+                Updates.max("activatedUntil", activatedUntil),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER)));
     }
 
-    public static List<Namespace> findByActivatedUntilOlderThan(Instant activatedUntil) {
-        return find("activatedUntil < ?1", activatedUntil).list();
+    /**
+     * Creates a namespace with a single atomic upsert, unless a namespace with that name exists already.
+     * An existing namespace is left untouched.
+     *
+     * @return the created namespace, empty if the namespace existed already
+     */
+    public static Optional<Namespace> createIfNotExists(String name, Instant activatedUntil) {
+        ObjectId id = new ObjectId();
+        Namespace namespace = Namespace.<Namespace>mongoCollection().findOneAndUpdate(
+                Filters.eq("name", name),
+                Updates.combine(Updates.setOnInsert("_id", id), Updates.setOnInsert("activatedUntil", activatedUntil)),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+        return Optional.ofNullable(namespace).filter(ns -> id.equals(ns.id));
+    }
+
+    /**
+     * Activates a namespace until at least activatedUntil with a single atomic upsert.
+     *
+     * @return the namespace after the update
+     */
+    public static Namespace extendOrCreate(String name, Instant activatedUntil) {
+        return Namespace.<Namespace>mongoCollection().findOneAndUpdate(
+                Filters.eq("name", name),
+                Updates.max("activatedUntil", activatedUntil),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
     }
 
-    public static long countActiveNamespaces() {
-        LocalDateTime now = LocalDateTime.now();
-        return count("activatedUntil > ?1", now);
+    /**
+     * Activates all given namespaces until at least activatedUntil with a single bulk write.
+     * Namespaces that do not exist yet are created.
+     *
+     * @return the namespaces after the update
+     */
+    public static List<Namespace> extendOrCreateAll(Collection<String> names, Instant activatedUntil) {
+        if (names.isEmpty()) {
+            return List.of();
+        }
+        List<UpdateOneModel<Namespace>> updates = names.stream()
+                .map(name -> new UpdateOneModel<Namespace>(Filters.eq("name", name),
+                        Updates.max("activatedUntil", activatedUntil),
+                        new UpdateOptions().upsert(true)))
+                .toList();
+        Namespace.<Namespace>mongoCollection().bulkWrite(updates, new BulkWriteOptions().ordered(false));
+        return list("name in ?1", names);
     }
 
-    public static long countTotalNamespaces() {
-        return count();
+    public static Optional<Namespace> findByName(String name) {
+        return find("name", name).singleResultOptional();
+    }
+
+    public static List<Namespace> findByActivatedUntilOlderThan(Instant activatedUntil) {
+        return find("activatedUntil < ?1", activatedUntil).list();
     }
 
     public static List<Namespace> getAll() {
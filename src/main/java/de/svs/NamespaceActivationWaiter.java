@@ -1,17 +1,20 @@
 package de.svs;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import de.svs.status.NamespaceStatus;
+import de.svs.status.NamespaceStatusProbes;
+import de.svs.status.StatusDto;
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.unchecked.Unchecked;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.sse.OutboundSseEvent;
 import jakarta.ws.rs.sse.Sse;
-import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.time.Duration;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 @ApplicationScoped
 public class NamespaceActivationWaiter {
@@ -21,27 +24,58 @@ public class NamespaceActivationWaiter {
     @Inject
     Sse sse;
 
-    @ConfigProperty(name = "baseDomain")
-    String baseDomain;
-
-    @ConfigProperty(name = "waiter.delayInSeconds", defaultValue = "2")
-    int delayInSeconds;
+    @Inject
+    NamespaceStatusProbes namespaceStatusProbes;
 
     Multi<OutboundSseEvent> waitForNamespaceToBecomeAvailable(String namespace, int maxWaitTimeInSeconds) {
-        int delayInSeconds = 2;
-        int maxTries = maxWaitTimeInSeconds / delayInSeconds;
-        AtomicBoolean finalMessageReceived = new AtomicBoolean();
+        return namespaceStatusProbes.probe(namespace)
+                .map(Unchecked.function(this::toSseEvent))
+                .select()
+                .first(Duration.ofSeconds(maxWaitTimeInSeconds));
+    }
+
+    OutboundSseEvent toSseEvent(StatusDto statusDto) throws JsonProcessingException {
+        return sse.newEventBuilder()
+                .name("namespace-status")
+                .data(String.class, objectMapper.writeValueAsString(statusDto))
+                .build();
+    }
 
+    /**
+     * Waits for several namespaces at once, interleaving their events on one stream.
+     * The stream completes when every namespace has sent its final message or run out of time.
+     */
+    Multi<OutboundSseEvent> waitForNamespacesToBecomeAvailable(Map<String, Integer> maxWaitTimeInSecondsByNamespace) {
+        return merge(maxWaitTimeInSecondsByNamespace.entrySet()
+                .stream()
+                .map(entry -> waitForNamespaceToBecomeAvailable(entry.getKey(), entry.getValue()))
+                .toList());
+    }
+
+    /**
+     * Like {@link #waitForNamespacesToBecomeAvailable(Map)}, but every namespace is followed by a "namespace-done" event
+     * carrying its name as soon as its own stream has ended, so clients watching many namespaces
+     * can tell which of them are finished.
+     */
+    Multi<OutboundSseEvent> watchNamespaces(Collection<String> namespaces, int maxWaitTimeInSeconds) {
+        return merge(namespaces.stream()
+                .distinct()
+                .map(namespace -> Multi.createBy().concatenating().streams(
+                        waitForNamespaceToBecomeAvailable(namespace, maxWaitTimeInSeconds),
+                        Multi.createFrom().item(() -> sse.newEventBuilder()
+                                .name("namespace-done")
+                                .data(String.class, namespace)
+                                .build())))
+                .toList());
+    }
+
+    private static Multi<OutboundSseEvent> merge(List<Multi<OutboundSseEvent>> streams) {
+        if (streams.isEmpty()) {
+            return Multi.createFrom().empty();
+        }
         return Multi.createBy()
-                .repeating()
-                .supplier(Unchecked.supplier(() -> new NamespaceStatus(objectMapper, baseDomain).get(namespace)))
-                .withDelay(Duration.ofSeconds(delayInSeconds))
-                .until(outboundSseEvent -> finalMessageReceived.getAndSet(outboundSseEvent.finalMessage()))
-                .map(Unchecked.function(statusDto -> sse.newEventBuilder()
-                        .name("namespace-status")
-                        .data(String.class, objectMapper.writeValueAsString(statusDto))
-                        .build()))
-                .select()
-                .first(maxTries);
+                .merging()
+                .withConcurrency(streams.size())
+                .streams(streams);
     }
 }
@@ -1,21 +1,55 @@
 package de.svs;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.svs.admission.Admission;
+import de.svs.admission.AdmissionController;
+import de.svs.admission.Priority;
+import de.svs.cache.NamespaceActivationCache;
+import de.svs.history.ActivationEventLog;
+import de.svs.prediction.PreActivationScheduler;
+import de.svs.status.StatusDto;
 import io.quarkus.qute.CheckedTemplate;
 import io.quarkus.qute.TemplateInstance;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.unchecked.Unchecked;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.sse.OutboundSseEvent;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 import org.jboss.resteasy.reactive.RestMulti;
 import org.jboss.resteasy.reactive.RestStreamElementType;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
+/**
+ * The endpoints polled by KEDA and the scalers use {@link ReactiveNamespaceRepository} and run on the event loop
+ * without blocking. The other endpoints that talk to MongoDB run on virtual threads, so requests waiting on
+ * the database do not tie up the worker pool (or, for the streaming endpoints, the event loop).
+ * With quarkus.virtual-threads.enabled=false they run on the worker pool instead.
+ * <p>
+ * Activations through post, createIfNotExistsAndWait, extendAndWait and batch/extendAndWait go through
+ * the {@link AdmissionController}, which limits how many namespaces are cold-starting at once.
+ */
 @Path("/namespace")
 public class NamespaceController {
 
@@ -24,12 +58,36 @@ public class NamespaceController {
     @ConfigProperty(name = "namespace.activationHours", defaultValue = "48")
     int activationHours;
 
+    @ConfigProperty(name = "namespace.status.maxNamespacesPerStream", defaultValue = "100")
+    int maxNamespacesPerStream;
+
     @ConfigProperty(name = "externalHostName", defaultValue = "localhost")
     String externalHostName;
 
+    @ConfigProperty(name = "baseDomain")
+    String baseDomain;
+
     @Inject
     NamespaceActivationWaiter namespaceActivationWaiter;
 
+    @Inject
+    NamespaceActivationCache namespaceActivationCache;
+
+    @Inject
+    ReactiveNamespaceRepository reactiveNamespaceRepository;
+
+    @Inject
+    ActivationEventLog activationEventLog;
+
+    @Inject
+    AdmissionController admissionController;
+
+    @Inject
+    PreActivationScheduler preActivationScheduler;
+
+    @Inject
+    ObjectMapper objectMapper;
+
     @CheckedTemplate
     public static class Templates {
         public static native TemplateInstance namespace(String host, String defaultNamespace, String message, boolean pollNamespace);
@@ -54,6 +112,7 @@ public class NamespaceController {
     @POST
     @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
     @Produces(MediaType.TEXT_HTML)
+    @RunOnVirtualThread
     public TemplateInstance post(@FormParam("namespace") String namespace, @FormParam("action") Action action) {
         logger.info("post called " + namespace + " " + action);
 
@@ -61,14 +120,17 @@ public class NamespaceController {
             case ACTIVATE -> getActivatedUntil();
         };
 
-        Optional<Namespace> nsOp = Namespace.findByName(namespace);
         final boolean pollNamespace;
         final String message;
-        if (nsOp.isPresent()) {
-            Namespace namespaceEntity = nsOp.get();
-            namespaceEntity.updateActivatedUntilIfLater(activatedUntil);
-            namespaceEntity.update();
-            message = "namespace " + namespace + " is now activated until " + activatedUntil;
+        if (namespaceActivationCache.getActivatedUntil(namespace).isPresent()) {
+            int position = admissionController.enqueue(namespace, Priority.INTERACTIVE, () ->
+                    Namespace.extendActivatedUntil(namespace, activatedUntil).ifPresent(ns -> {
+                        namespaceActivationCache.put(ns);
+                        activationEventLog.record(ns, "post");
+                    }));
+            message = position == 0
+                    ? "namespace " + namespace + " is now activated until " + activatedUntil
+                    : "namespace " + namespace + " is queued at position " + position + ", too many namespaces are starting right now";
             pollNamespace = true;
         } else {
             message = namespace + " not found";
@@ -82,37 +144,47 @@ public class NamespaceController {
     @POST
     @Path("/createIfNotExistsAndWait")
     @RestStreamElementType(MediaType.TEXT_PLAIN)
+    @RunOnVirtualThread
     public RestMulti<OutboundSseEvent> createIfNotExistsAndWait(NamespaceDto dto) {
         String namespace = dto.getName();
-        if (Namespace.findByName(namespace).isPresent()) {
+        Optional<Namespace> created = Namespace.createIfNotExists(namespace, getActivatedUntil());
+        if (created.isEmpty()) {
             logger.info("attempted to create namespace " + namespace + " but already present, won't wait");
             return RestMulti.<OutboundSseEvent>fromMultiData(Multi.createFrom().empty())
                     .status(304)
                     .build();
-        } else {
-            logger.info("creating namespace " + namespace + ", will wait");
-            Namespace ne = new Namespace();
-            ne.name = namespace;
-            ne.activatedUntil = getActivatedUntil();
-            ne.persist();
-            return RestMulti.fromMultiData(namespaceActivationWaiter.waitForNamespaceToBecomeAvailable(namespace, dto.getMaxWaitTimeInSeconds()))
-                    .status(201)
-                    .build();
         }
+        logger.info("creating namespace " + namespace + ", will wait");
+        namespaceActivationCache.put(created.get());
+        activationEventLog.record(created.get(), "createIfNotExistsAndWait");
+        // created active, only the wait goes through admission: a lost ticket must not leave the namespace inactive
+        Admission admission = admissionController.admitColdStart(namespace, Priority.PIPELINE);
+        Multi<StatusDto> updates = admission.positions();
+        if (admission.pending()) {
+            updates = Multi.createBy().concatenating().streams(
+                    Multi.createFrom().item(new StatusDto(namespace, "namespace created, waiting for other namespaces to start",
+                            "https://" + namespace + baseDomain, true, false)),
+                    updates);
+        }
+        return RestMulti.fromMultiData(waitForAdmissionAndNamespace(updates, namespace, dto.getMaxWaitTimeInSeconds()))
+                .status(201)
+                .build();
     }
 
     @POST
     @Path("/extendAndWait")
     @RestStreamElementType(MediaType.TEXT_PLAIN)
+    @RunOnVirtualThread
     public RestMulti<OutboundSseEvent> extendAndWait(NamespaceDto dto) {
         String namespace = dto.getName();
-        Optional<Namespace> namespaceEntity = Namespace.findByName(namespace);
-        if (namespaceEntity.isPresent()) {
+        if (namespaceActivationCache.getActivatedUntil(namespace).isPresent()) {
             logger.info("extending activation time of " + namespace);
-            Namespace ns = namespaceEntity.get();
-            ns.updateActivatedUntilIfLater(getActivatedUntil());
-            ns.update();
-            return RestMulti.fromMultiData(namespaceActivationWaiter.waitForNamespaceToBecomeAvailable(namespace, dto.getMaxWaitTimeInSeconds()))
+            Admission admission = admissionController.admit(namespace, Priority.PIPELINE, () ->
+                    Namespace.extendActivatedUntil(namespace, getActivatedUntil()).ifPresent(extended -> {
+                        namespaceActivationCache.put(extended);
+                        activationEventLog.record(extended, "extendAndWait");
+                    }));
+            return RestMulti.fromMultiData(waitForAdmissionAndNamespace(admission.positions(), namespace, dto.getMaxWaitTimeInSeconds()))
                     .status(200)
                     .build();
         } else {
@@ -123,39 +195,149 @@ public class NamespaceController {
         }
     }
 
-    @PUT
+    /**
+     * Streams the queue positions while waiting for admission, the status of the namespace afterwards.
+     * The max wait time only applies to the latter.
+     */
+    private Multi<OutboundSseEvent> waitForAdmissionAndNamespace(Multi<StatusDto> admission, String namespace, int maxWaitTimeInSeconds) {
+        return Multi.createBy().concatenating().streams(
+                admission.map(Unchecked.function(namespaceActivationWaiter::toSseEvent)),
+                namespaceActivationWaiter.waitForNamespaceToBecomeAvailable(namespace, maxWaitTimeInSeconds));
+    }
+
+    /**
+     * Activates or extends all given namespaces and streams the status events of all of them.
+     * Namespaces that do not exist yet are created.
+     * <p>
+     * Active namespaces are extended with one bulk write. The others are cold starts and go through admission
+     * one by one, like with extendAndWait, so a pipeline cannot get around the limit by sending a list.
+     */
+    @POST
+    @Path("/batch/extendAndWait")
     @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
-    public NamespaceDto createNamespaceEntry(NamespaceDto dto) {
+    @RestStreamElementType(MediaType.TEXT_PLAIN)
+    @RunOnVirtualThread
+    public Multi<OutboundSseEvent> batchExtendAndWait(List<NamespaceDto> dtos) {
+        Map<String, Integer> maxWaitTimeInSecondsByNamespace = new LinkedHashMap<>();
+        for (NamespaceDto dto : dtos) {
+            maxWaitTimeInSecondsByNamespace.merge(dto.getName(), dto.getMaxWaitTimeInSeconds(), Math::max);
+        }
+        logger.info("extending activation time of " + maxWaitTimeInSecondsByNamespace.keySet());
+
         Instant activatedUntil = getActivatedUntil();
+        Instant now = Instant.now();
+        List<String> active = new ArrayList<>();
+        List<String> cold = new ArrayList<>();
+        for (String name : maxWaitTimeInSecondsByNamespace.keySet()) {
+            Instant cached = namespaceActivationCache.cached(name);
+            (cached != null && cached.isAfter(now) ? active : cold).add(name);
+        }
 
-        Namespace namespace = new Namespace();
-        namespace.name = dto.getName();
-        namespace.activatedUntil = activatedUntil;
-        namespace.persist();
+        List<Namespace> namespaces = Namespace.extendOrCreateAll(active, activatedUntil);
+        namespaces.forEach(namespaceActivationCache::put);
+        activationEventLog.recordAll(namespaces, "batchExtendAndWait");
+        List<Multi<StatusDto>> positions = cold.stream()
+                .map(name -> admissionController.admit(name, Priority.PIPELINE, () -> {
+                    Namespace activated = Namespace.extendOrCreate(name, activatedUntil);
+                    namespaceActivationCache.put(activated);
+                    activationEventLog.record(activated, "batchExtendAndWait");
+                }).positions())
+                .toList();
+        // merged, so all of them are queued at once
+        return Multi.createBy().concatenating().streams(
+                Multi.createBy().merging().streams(positions).map(Unchecked.function(namespaceActivationWaiter::toSseEvent)),
+                namespaceActivationWaiter.waitForNamespacesToBecomeAvailable(maxWaitTimeInSecondsByNamespace));
+    }
 
-        dto.setActivatedUntil(activatedUntil);
-        logger.info("namespace " + dto.getName() + " is now activated until " + activatedUntil);
-        return dto;
+    @PUT
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Uni<NamespaceDto> createNamespaceEntry(NamespaceDto dto) {
+        return reactiveNamespaceRepository.extendOrCreate(dto.getName(), getActivatedUntil())
+                .invoke(namespaceActivationCache::put)
+                .invoke(namespace -> activationEventLog.record(namespace, "createNamespaceEntry"))
+                .map(namespace -> {
+                    dto.setActivatedUntil(namespace.activatedUntil);
+                    logger.info("namespace " + dto.getName() + " is now activated until " + namespace.activatedUntil);
+                    return dto;
+                });
     }
 
     @Path("/status")
     @GET()
     @RestStreamElementType(MediaType.TEXT_PLAIN)
     public Multi<OutboundSseEvent> status(@QueryParam("namespace") String namespace) {
+        preActivationScheduler.recordUse(namespace);
         return namespaceActivationWaiter.waitForNamespaceToBecomeAvailable(namespace, 60);
     }
 
+    /**
+     * Status events of several namespaces on one connection, e.g. for dashboards: /namespace/status/multi?namespace=a&namespace=b
+     * <p>
+     * Every event names its namespace. A "namespace-done" event marks the end of a single namespace,
+     * the stream completes once all of them are done.
+     */
+    @Path("/status/multi")
+    @GET
+    @RestStreamElementType(MediaType.TEXT_PLAIN)
+    public Multi<OutboundSseEvent> statusOfMany(@QueryParam("namespace") List<String> namespaces) {
+        if (namespaces.isEmpty()) {
+            throw new BadRequestException("at least one namespace is required");
+        }
+        if (namespaces.size() > maxNamespacesPerStream) {
+            throw new BadRequestException("at most " + maxNamespacesPerStream + " namespaces can be watched at once");
+        }
+        namespaces.forEach(preActivationScheduler::recordUse);
+        return namespaceActivationWaiter.watchNamespaces(namespaces, 60);
+    }
+
     @Path("/{namespace}/active")
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public NamespaceActiveResponse isNamespaceActive(@PathParam("namespace") String namespace) {
-        return Namespace.findByName(namespace)
-                .map(ns -> {
-                    int active = ns.activatedUntil.isAfter(Instant.now()) ? 1 : 0;
-                    return new NamespaceActiveResponse(ns.name, ns.activatedUntil, active, 1 - active);
-                })
-                .orElseThrow(() -> new NotFoundException("Namespace " + namespace + " not found"));
+    public Uni<NamespaceActiveResponse> isNamespaceActive(@PathParam("namespace") String namespace) {
+        Instant cached = namespaceActivationCache.cached(namespace);
+        if (cached != null) {
+            return Uni.createFrom().item(NamespaceActiveResponse.of(namespace, cached, Instant.now()));
+        }
+        return reactiveNamespaceRepository.findByName(namespace)
+                .onItem().ifNull().failWith(() -> new NotFoundException("Namespace " + namespace + " not found"))
+                .invoke(namespaceActivationCache::put)
+                .map(found -> NamespaceActiveResponse.of(namespace, found.activatedUntil, Instant.now()));
+    }
+
+    /**
+     * Activation state of all namespaces (optionally only those starting with prefix) in one response, keyed by name.
+     * <p>
+     * The response carries an ETag, so caches and KEDA proxies can poll it with If-None-Match
+     * and get a 304 as long as nothing has changed.
+     */
+    @Path("/active")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response activeNamespaces(@QueryParam("prefix") Optional<String> prefix, @Context Request request) throws JsonProcessingException {
+        Instant now = Instant.now();
+        SortedMap<String, NamespaceActiveResponse> namespaces = new TreeMap<>();
+        namespaceActivationCache.snapshot().forEach((name, activatedUntil) -> {
+            if (prefix.map(name::startsWith).orElse(true)) {
+                namespaces.put(name, NamespaceActiveResponse.of(name, activatedUntil, now));
+            }
+        });
+
+        byte[] body = objectMapper.writeValueAsBytes(namespaces);
+        EntityTag entityTag = new EntityTag(sha256(body));
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        return Response.ok(body, MediaType.APPLICATION_JSON_TYPE).tag(entityTag).build();
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
@@ -163,6 +345,12 @@ public class NamespaceController {
      * @param inactive inverse of active (1 if inactive, 0 if active).
      *                 Both must be int (not boolean) because KEDA's metrics-api scaler only accepts numeric values.
      */
-    public record NamespaceActiveResponse(String name, Instant activatedUntil, int active, int inactive) {}
+    public record NamespaceActiveResponse(String name, Instant activatedUntil, int active, int inactive) {
+
+        static NamespaceActiveResponse of(String name, Instant activatedUntil, Instant now) {
+            int active = activatedUntil.isAfter(now) ? 1 : 0;
+            return new NamespaceActiveResponse(name, activatedUntil, active, 1 - active);
+        }
+    }
 
 }
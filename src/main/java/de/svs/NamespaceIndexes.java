@@ -0,0 +1,89 @@
+package de.svs;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.interceptor.Interceptor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the indexes of the namespaces collection at startup: a unique one on name and one on activatedUntil.
+ * <p>
+ * Before the unique index can be created, namespaces that have been persisted more than once are merged,
+ * keeping the entry with the latest activatedUntil.
+ */
+@ApplicationScoped
+public class NamespaceIndexes {
+
+    private static final Logger logger = Logger.getLogger(NamespaceIndexes.class);
+
+    static final String NAME_INDEX = "name_unique";
+    static final String ACTIVATED_UNTIL_INDEX = "activatedUntil";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    // runs before the other startup observers, e.g. the one filling the activation cache
+    void onStart(@Observes @Priority(Interceptor.Priority.APPLICATION) StartupEvent event) {
+        ensureIndexes();
+    }
+
+    void ensureIndexes() {
+        MongoCollection<Namespace> collection = Namespace.mongoCollection();
+        for (int attempt = 1; ; attempt++) {
+            mergeDuplicates();
+            try {
+                collection.createIndex(Indexes.ascending("name"), new IndexOptions().name(NAME_INDEX).unique(true));
+                break;
+            } catch (MongoException e) {
+                // another replica may have written a duplicate in the meantime
+                if (attempt == MAX_ATTEMPTS) {
+                    logger.error("could not create unique index on namespace names", e);
+                    break;
+                }
+                logger.warn("creating unique index on namespace names failed, retrying", e);
+            }
+        }
+        collection.createIndex(Indexes.ascending("activatedUntil"), new IndexOptions().name(ACTIVATED_UNTIL_INDEX));
+    }
+
+    /**
+     * @return number of removed duplicates
+     */
+    long mergeDuplicates() {
+        MongoCollection<Namespace> collection = Namespace.mongoCollection();
+        List<Document> duplicates = collection.aggregate(List.of(
+                        Aggregates.sort(Sorts.descending("activatedUntil")),
+                        Aggregates.group("$name",
+                                Accumulators.first("keep", "$_id"),
+                                Accumulators.push("ids", "$_id"),
+                                Accumulators.sum("count", 1)),
+                        Aggregates.match(Filters.gt("count", 1))), Document.class)
+                .into(new ArrayList<>());
+
+        long removed = 0;
+        for (Document duplicate : duplicates) {
+            ObjectId keep = duplicate.getObjectId("keep");
+            List<ObjectId> toRemove = duplicate.getList("ids", ObjectId.class)
+                    .stream()
+                    .filter(id -> !id.equals(keep))
+                    .toList();
+            logger.info("merging " + duplicate.getInteger("count") + " entries of namespace " + duplicate.getString("_id") + " into " + keep);
+            removed += collection.deleteMany(Filters.in("_id", toRemove)).getDeletedCount();
+        }
+        return removed;
+    }
+}
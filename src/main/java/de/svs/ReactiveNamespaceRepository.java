@@ -0,0 +1,37 @@
+package de.svs;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import io.quarkus.mongodb.panache.reactive.ReactivePanacheMongoRepositoryBase;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+
+/**
+ * Non-blocking counterpart of the queries and updates of {@link Namespace}, for endpoints that must not tie up
+ * a thread while waiting on MongoDB.
+ */
+@ApplicationScoped
+public class ReactiveNamespaceRepository implements ReactivePanacheMongoRepositoryBase<Namespace, ObjectId> {
+
+    /**
+     * @return the namespace, null if there is no namespace with that name
+     */
+    public Uni<Namespace> findByName(String name) {
+        return find("name", name).firstResult();
+    }
+
+    /**
+     * @see Namespace#extendOrCreate(String, Instant)
+     */
+    public Uni<Namespace> extendOrCreate(String name, Instant activatedUntil) {
+        return mongoCollection().findOneAndUpdate(
+                Filters.eq("name", name),
+                Updates.max("activatedUntil", activatedUntil),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+    }
+}
@@ -0,0 +1,35 @@
+package de.svs;
+
+import io.quarkus.mongodb.panache.PanacheMongoEntityBase;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import org.bson.codecs.pojo.annotations.BsonId;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Position of a stream (e.g. a MongoDB change stream) that has to survive restarts of the activator.
+ */
+@MongoEntity(collection = "resumeTokens")
+public class ResumeToken extends PanacheMongoEntityBase {
+    @BsonId
+    public String id;
+    public String value;
+    public Instant updatedAt;
+
+    public static Optional<String> load(String id) {
+        return ResumeToken.<ResumeToken>findByIdOptional(id).map(token -> token.value);
+    }
+
+    public static void save(String id, String value) {
+        ResumeToken token = new ResumeToken();
+        token.id = id;
+        token.value = value;
+        token.updatedAt = Instant.now();
+        token.persistOrUpdate();
+    }
+
+    public static void clear(String id) {
+        deleteById(id);
+    }
+}
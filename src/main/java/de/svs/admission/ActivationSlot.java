@@ -0,0 +1,20 @@
+package de.svs.admission;
+
+import io.quarkus.mongodb.panache.PanacheMongoEntityBase;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import org.bson.codecs.pojo.annotations.BsonId;
+
+import java.time.Instant;
+
+/**
+ * One of the cluster-wide slots for namespaces that are cold-starting. A slot is free if it has no namespace
+ * or its lease has expired, e.g. because the replica holding it died.
+ */
+@MongoEntity(collection = "activationSlots")
+public class ActivationSlot extends PanacheMongoEntityBase {
+    @BsonId
+    public String id;
+    public String namespace;
+    public String holder;
+    public Instant expiresAt;
+}
@@ -0,0 +1,13 @@
+package de.svs.admission;
+
+import de.svs.status.StatusDto;
+import io.smallrye.mutiny.Multi;
+
+/**
+ * Result of {@link AdmissionController#admit(String, Priority, Runnable)}.
+ *
+ * @param pending   true if the activation has been queued instead of run right away
+ * @param positions queue positions while the activation is waiting, completes once it has been run
+ */
+public record Admission(boolean pending, Multi<StatusDto> positions) {
+}
@@ -0,0 +1,354 @@
+package de.svs.admission;
+
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import de.svs.cache.NamespaceActivationCache;
+import de.svs.status.NamespaceStatusProbes;
+import de.svs.status.StatusDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * Limits how many namespaces are cold-starting in the cluster at the same time, so a burst of activations
+ * does not make every deployment of the dev cluster scale up at once.
+ * <p>
+ * An activation of a namespace that is not active needs one of the cluster-wide {@link ActivationSlot}s, which are
+ * shared by all replicas through MongoDB. The slot is held until the namespace is available or the slot timeout has passed.
+ * Activations of namespaces that are active already, or that are cold-starting anyway, are let through right away.
+ * <p>
+ * Activations that do not get a slot wait in a queue, ordered by the time they have been waiting
+ * plus the head start of their {@link Priority}. Waiting clients get their queue position as {@link StatusDto}.
+ * A queued activation is run even if its client has stopped waiting, like any other accepted activation.
+ * <p>
+ * The queue is shared by all replicas through MongoDB ({@link AdmissionTicket}). Every replica runs the activations
+ * of its own tickets, but a ticket only takes a free slot if fewer tickets are ahead of it in the whole cluster
+ * than there are free slots, and a new activation only skips the queue if nobody is waiting. So all replicas admit
+ * in the same order, and the reported positions are cluster-wide.
+ */
+@ApplicationScoped
+public class AdmissionController {
+
+    private static final Logger logger = Logger.getLogger(AdmissionController.class);
+
+    private static final class Ticket {
+        final ObjectId id = new ObjectId();
+        final String namespace;
+        final Runnable activation;
+        final Instant enqueuedAt = Instant.now();
+        // MongoDB stores milliseconds, the local order has to match the cluster-wide one
+        final Instant rank;
+        final MultiEmitter<? super StatusDto> emitter;
+        int lastReportedPosition;
+
+        Ticket(String namespace, Priority priority, Runnable activation, MultiEmitter<? super StatusDto> emitter) {
+            this.namespace = namespace;
+            this.activation = activation;
+            this.emitter = emitter;
+            this.rank = enqueuedAt.minus(priority.headStart).truncatedTo(ChronoUnit.MILLIS);
+        }
+    }
+
+    private final PriorityBlockingQueue<Ticket> queue = new PriorityBlockingQueue<>(64,
+            Comparator.<Ticket, Instant>comparing(ticket -> ticket.rank).thenComparing(ticket -> ticket.id));
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+    private final String identity = Optional.ofNullable(System.getenv("HOSTNAME")).orElse(UUID.randomUUID().toString());
+
+    @Inject
+    NamespaceActivationCache namespaceActivationCache;
+
+    @Inject
+    NamespaceStatusProbes namespaceStatusProbes;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "admission.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "admission.maxConcurrentColdStarts", defaultValue = "10")
+    int maxConcurrentColdStarts;
+
+    @ConfigProperty(name = "admission.slotTimeout", defaultValue = "5m")
+    Duration slotTimeout;
+
+    @ConfigProperty(name = "admission.ticketLease", defaultValue = "30s")
+    Duration ticketLease;
+
+    @ConfigProperty(name = "baseDomain")
+    String baseDomain;
+
+    private List<String> slotIds;
+    private Counter admittedRightAway;
+    private Counter admittedFromQueue;
+    private Timer queueTime;
+
+    void onStart(@Observes StartupEvent event) {
+        slotIds = IntStream.range(0, maxConcurrentColdStarts).mapToObj(i -> "slot-" + i).toList();
+        for (String slotId : enabled ? slotIds : List.<String>of()) {
+            ActivationSlot.<ActivationSlot>mongoCollection().updateOne(Filters.eq("_id", slotId),
+                    Updates.setOnInsert("namespace", null), new UpdateOptions().upsert(true));
+        }
+        if (enabled) {
+            var tickets = AdmissionTicket.<AdmissionTicket>mongoCollection();
+            tickets.createIndex(Indexes.ascending("rank", "_id"));
+            // removes the tickets of replicas that died
+            tickets.createIndex(Indexes.ascending("expiresAt"), new IndexOptions().expireAfter(0L, TimeUnit.SECONDS));
+        }
+        Gauge.builder("admission_queue_size", queue, PriorityBlockingQueue::size)
+                .description("Number of activations waiting for a cold start slot on this replica")
+                .register(registry);
+        admittedRightAway = Counter.builder("admission_admitted").tag("queued", "false")
+                .description("Number of admitted activations of inactive namespaces").register(registry);
+        admittedFromQueue = Counter.builder("admission_admitted").tag("queued", "true")
+                .description("Number of admitted activations of inactive namespaces").register(registry);
+        queueTime = Timer.builder("admission_queue_time")
+                .description("Time activations have been waiting for a cold start slot")
+                .register(registry);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (enabled) {
+            // the activations of this replica's tickets are lost, they must not hold up the other replicas
+            AdmissionTicket.delete("holder", identity);
+        }
+    }
+
+    /**
+     * Runs the activation as soon as the namespace is admitted, right away if possible.
+     * A queued activation waits for the first subscriber of {@link Admission#positions()}.
+     */
+    public Admission admit(String namespace, Priority priority, Runnable activation) {
+        return admit(namespace, priority, activation, false);
+    }
+
+    /**
+     * Admission of a namespace that has been activated already, e.g. because it has just been created active.
+     * It waits for a slot like any other cold start, so its client only waits for the namespace once it is admitted,
+     * but losing the ticket, e.g. on a restart, cannot leave the namespace inactive.
+     */
+    public Admission admitColdStart(String namespace, Priority priority) {
+        return admit(namespace, priority, () -> {
+        }, true);
+    }
+
+    private Admission admit(String namespace, Priority priority, Runnable activation, boolean coldStart) {
+        if (tryRunRightAway(namespace, activation, coldStart)) {
+            return new Admission(false, Multi.createFrom().empty());
+        }
+        return new Admission(true, Multi.createFrom().emitter(emitter -> {
+            Ticket ticket = new Ticket(namespace, priority, activation, emitter);
+            // subscribers may be on the event loop, queueing talks to MongoDB
+            Infrastructure.getDefaultWorkerPool().execute(() -> {
+                try {
+                    add(ticket);
+                } catch (RuntimeException e) {
+                    emitter.fail(e);
+                    return;
+                }
+                dispatch();
+            });
+        }));
+    }
+
+    /**
+     * Like {@link #admit(String, Priority, Runnable)}, for callers that do not wait for the activation.
+     *
+     * @return 0 if the activation has been run right away, its position in the queue otherwise
+     */
+    public int enqueue(String namespace, Priority priority, Runnable activation) {
+        if (tryRunRightAway(namespace, activation, false)) {
+            return 0;
+        }
+        Ticket ticket = new Ticket(namespace, priority, activation, null);
+        add(ticket);
+        dispatch();
+        return queue.contains(ticket) ? ticketsAhead(ticket) + 1 : 0;
+    }
+
+    private boolean tryRunRightAway(String namespace, Runnable activation, boolean coldStart) {
+        Instant activatedUntil = namespaceActivationCache.cached(namespace);
+        boolean active = activatedUntil != null && activatedUntil.isAfter(Instant.now());
+        if (!enabled || (active && !coldStart)) {
+            activation.run();
+            return true;
+        }
+        if (joinColdStart(namespace) || (queue.isEmpty() && !anyTicketWaiting() && acquireFree(namespace))) {
+            admittedRightAway.increment();
+            run(namespace, activation);
+            return true;
+        }
+        return false;
+    }
+
+    private void add(Ticket ticket) {
+        AdmissionTicket entry = new AdmissionTicket();
+        entry.id = ticket.id;
+        entry.namespace = ticket.namespace;
+        entry.rank = ticket.rank;
+        entry.holder = identity;
+        entry.expiresAt = Instant.now().plus(ticketLease);
+        entry.persist();
+        queue.add(ticket);
+    }
+
+    @Scheduled(every = "${admission.dispatchInterval:1s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void dispatch() {
+        if (queue.isEmpty()) {
+            return;
+        }
+        // a lock instead of synchronized, enqueue() dispatches on virtual threads
+        dispatchLock.lock();
+        try {
+            AdmissionTicket.<AdmissionTicket>mongoCollection().updateMany(Filters.eq("holder", identity),
+                    Updates.set("expiresAt", Instant.now().plus(ticketLease)));
+            Ticket head;
+            while ((head = queue.peek()) != null && tryAcquireInTurn(head)) {
+                queue.remove(head);
+                AdmissionTicket.deleteById(head.id);
+                admittedFromQueue.increment();
+                queueTime.record(Duration.between(head.enqueuedAt, Instant.now()));
+                logger.info("admitting " + head.namespace + " after waiting since " + head.enqueuedAt);
+                try {
+                    run(head.namespace, head.activation);
+                    if (head.emitter != null) {
+                        head.emitter.complete();
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("activation of " + head.namespace + " failed", e);
+                    if (head.emitter != null) {
+                        head.emitter.fail(e);
+                    }
+                }
+            }
+            reportPositions();
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+
+    private void reportPositions() {
+        List<Ticket> waiting = new ArrayList<>(queue);
+        waiting.sort(queue.comparator());
+        for (Ticket ticket : waiting) {
+            if (ticket.emitter == null || ticket.emitter.isCancelled()) {
+                continue;
+            }
+            int position = ticketsAhead(ticket) + 1;
+            if (ticket.lastReportedPosition != position) {
+                ticket.lastReportedPosition = position;
+                ticket.emitter.emit(new StatusDto(ticket.namespace,
+                        "activation pending, waiting for other namespaces to start, position " + position + " in queue",
+                        "https://" + ticket.namespace + baseDomain, true, false));
+            }
+        }
+    }
+
+    /**
+     * Runs the activation and holds the slot until the namespace is available.
+     */
+    private void run(String namespace, Runnable activation) {
+        try {
+            activation.run();
+        } catch (RuntimeException e) {
+            release(namespace);
+            throw e;
+        }
+        namespaceStatusProbes.probe(namespace)
+                .select().first(slotTimeout)
+                .select().where(StatusDto::finalMessage)
+                .toUni()
+                // probes complete on the event loop, releasing talks to MongoDB
+                .onTermination().invoke(() -> Infrastructure.getDefaultWorkerPool().execute(() -> release(namespace)))
+                .subscribe().with(status -> logger.debug(namespace + " is available, releasing its slot"),
+                        failure -> logger.debug("releasing slot of " + namespace + " after " + failure));
+    }
+
+    boolean tryAcquire(String namespace) {
+        return joinColdStart(namespace) || acquireFree(namespace);
+    }
+
+    private boolean tryAcquireInTurn(Ticket ticket) {
+        return joinColdStart(ticket.namespace) || (ticketsAhead(ticket) < freeSlots() && acquireFree(ticket.namespace));
+    }
+
+    /**
+     * A namespace that is cold-starting already does not add any load, it shares the slot it holds.
+     */
+    private boolean joinColdStart(String namespace) {
+        Instant now = Instant.now();
+        Bson cold = Filters.and(Filters.in("_id", slotIds), Filters.eq("namespace", namespace), Filters.gt("expiresAt", now));
+        return ActivationSlot.<ActivationSlot>mongoCollection().findOneAndUpdate(cold, lease(namespace, now)) != null;
+    }
+
+    private boolean acquireFree(String namespace) {
+        Instant now = Instant.now();
+        return ActivationSlot.<ActivationSlot>mongoCollection().findOneAndUpdate(freeSlot(now), lease(namespace, now)) != null;
+    }
+
+    private long freeSlots() {
+        return ActivationSlot.<ActivationSlot>mongoCollection().countDocuments(freeSlot(Instant.now()));
+    }
+
+    private Bson freeSlot(Instant now) {
+        return Filters.and(Filters.in("_id", slotIds), Filters.or(Filters.eq("namespace", null), Filters.lte("expiresAt", now)));
+    }
+
+    private Bson lease(String namespace, Instant now) {
+        return Updates.combine(Updates.set("namespace", namespace), Updates.set("holder", identity),
+                Updates.set("expiresAt", now.plus(slotTimeout)));
+    }
+
+    private boolean anyTicketWaiting() {
+        return AdmissionTicket.<AdmissionTicket>mongoCollection().countDocuments(Filters.gt("expiresAt", Instant.now()), new CountOptions().limit(1)) > 0;
+    }
+
+    /**
+     * @return number of tickets of all replicas that are ahead of the given one
+     */
+    private int ticketsAhead(Ticket ticket) {
+        Bson ahead = Filters.or(Filters.lt("rank", ticket.rank),
+                Filters.and(Filters.eq("rank", ticket.rank), Filters.lt("_id", ticket.id)));
+        return (int) AdmissionTicket.<AdmissionTicket>mongoCollection()
+                .countDocuments(Filters.and(Filters.gt("expiresAt", Instant.now()), ahead));
+    }
+
+    void release(String namespace) {
+        ActivationSlot.<ActivationSlot>mongoCollection().updateMany(Filters.eq("namespace", namespace),
+                Updates.combine(Updates.set("namespace", null), Updates.set("expiresAt", null)));
+        if (!queue.isEmpty()) {
+            Infrastructure.getDefaultWorkerPool().execute(this::dispatch);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package de.svs.admission;
+
+import io.quarkus.mongodb.panache.PanacheMongoEntityBase;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import org.bson.codecs.pojo.annotations.BsonId;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+
+/**
+ * An activation waiting for an {@link ActivationSlot}. The tickets of all replicas form one queue,
+ * ordered by rank and id. Like a slot, a ticket is leased: its replica renews it while it is waiting,
+ * the tickets of a replica that died expire.
+ */
+@MongoEntity(collection = "admissionTickets")
+public class AdmissionTicket extends PanacheMongoEntityBase {
+    @BsonId
+    public ObjectId id;
+    public String namespace;
+    /**
+     * Time the ticket has been queued at minus the head start of its {@link Priority}.
+     */
+    public Instant rank;
+    public String holder;
+    public Instant expiresAt;
+}
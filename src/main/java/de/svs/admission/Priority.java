@@ -0,0 +1,24 @@
+package de.svs.admission;
+
+import java.time.Duration;
+
+/**
+ * Priority of an activation waiting for admission. A higher priority is a head start in the queue,
+ * so requests of lower priority still move up as they wait and are never starved.
+ */
+public enum Priority {
+    /**
+     * A developer waiting in front of the activation page.
+     */
+    INTERACTIVE(Duration.ofMinutes(2)),
+    /**
+     * A CI pipeline.
+     */
+    PIPELINE(Duration.ZERO);
+
+    final Duration headStart;
+
+    Priority(Duration headStart) {
+        this.headStart = headStart;
+    }
+}
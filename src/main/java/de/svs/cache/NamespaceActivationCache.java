@@ -0,0 +1,197 @@
+package de.svs.cache;
+
+import de.svs.Namespace;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.bson.types.ObjectId;
+import org.jboss.logging.Logger;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the activatedUntil of every known namespace in memory, so that the endpoints polled by KEDA
+ * and the metrics scraped by Prometheus can be answered without a database round trip.
+ * <p>
+ * The cache is filled from the database at startup, updated by every write path of the activator and
+ * by {@link NamespaceChangeStreamListener} for writes of other replicas. A periodic reload reconciles
+ * anything that slipped through. Namespaces that are not known yet are read through from the database once.
+ * <p>
+ * activatedUntil of a stored namespace only ever moves forward, so for the same document the later value wins.
+ * This makes it safe to apply change stream events that arrive after a local write.
+ * <p>
+ * Every change is published as {@link NamespaceActivationChanged}.
+ */
+@ApplicationScoped
+public class NamespaceActivationCache {
+
+    private static final Logger logger = Logger.getLogger(NamespaceActivationCache.class);
+
+    /**
+     * @param version value of {@link #writes} when the entry was written, tells a reload which entries are newer than its scan
+     */
+    private record Entry(ObjectId id, Instant activatedUntil, long version) {
+
+        boolean supersedes(Entry other) {
+            return id.equals(other.id()) && activatedUntil.isAfter(other.activatedUntil());
+        }
+    }
+
+    private final AtomicLong writes = new AtomicLong();
+    private final ConcurrentMap<String, Entry> entriesByName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ObjectId, String> namesById = new ConcurrentHashMap<>();
+    // ids of removed namespaces with the value of writes at their removal, so a reload does not bring them back
+    private final ConcurrentMap<ObjectId, Long> tombstones = new ConcurrentHashMap<>();
+
+    @Inject
+    Event<NamespaceActivationChanged> activationChanged;
+
+    void onStart(@Observes StartupEvent event) {
+        reload();
+    }
+
+    @Scheduled(every = "${namespace.cache.reconcileInterval:10m}", delayed = "${namespace.cache.reconcileInterval:10m}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void reconcile() {
+        reload();
+    }
+
+    /**
+     * Brings the cache in line with the current state of the database.
+     * <p>
+     * Writes that happen while the database is scanned are not lost: entries are merged with the same
+     * "later value wins" rule as {@link #put(Namespace)}, and a name missing from the scan is only evicted
+     * if it has not been written since the scan started. Namespaces removed while the scan is running leave a
+     * tombstone, so a scan that still saw them does not bring them back.
+     */
+    public void reload() {
+        long scanStarted = writes.get();
+        Map<String, Entry> fromDb = new HashMap<>();
+        for (Namespace namespace : Namespace.getAll()) {
+            if (namespace.name != null && namespace.activatedUntil != null) {
+                fromDb.merge(namespace.name, new Entry(namespace.id, namespace.activatedUntil, scanStarted),
+                        (a, b) -> a.activatedUntil().isAfter(b.activatedUntil()) ? a : b);
+            }
+        }
+
+        List<NamespaceActivationChanged> changes = new ArrayList<>();
+        fromDb.forEach((name, entry) -> {
+            AtomicReference<Entry> previous = new AtomicReference<>();
+            Entry merged = entriesByName.compute(name, (key, current) -> {
+                previous.set(current);
+                boolean keepCurrent = tombstones.containsKey(entry.id()) || (current != null
+                        && (current.supersedes(entry) || (!current.id().equals(entry.id()) && current.version() > scanStarted)));
+                return keepCurrent ? current : entry;
+            });
+            Instant activatedUntil = null;
+            if (merged != null) {
+                namesById.put(merged.id(), name);
+                activatedUntil = merged.activatedUntil();
+                // a removal between the merge and the line above did not find the name yet
+                if (tombstones.containsKey(merged.id()) && entriesByName.remove(name, merged)) {
+                    namesById.remove(merged.id(), name);
+                    activatedUntil = null;
+                }
+            }
+            Instant previousActivatedUntil = previous.get() == null ? null : previous.get().activatedUntil();
+            if (!Objects.equals(previousActivatedUntil, activatedUntil)) {
+                changes.add(new NamespaceActivationChanged(name, activatedUntil));
+            }
+        });
+        entriesByName.forEach((name, entry) -> {
+            if (!fromDb.containsKey(name) && entry.version() <= scanStarted && entriesByName.remove(name, entry)) {
+                changes.add(new NamespaceActivationChanged(name, null));
+            }
+        });
+        namesById.entrySet().removeIf(idAndName -> {
+            Entry current = entriesByName.get(idAndName.getValue());
+            return current == null || !current.id().equals(idAndName.getKey());
+        });
+        // removals are applied after the namespace has been deleted, so a scan that started later has not seen it
+        tombstones.values().removeIf(removedAt -> removedAt <= scanStarted);
+
+        changes.forEach(activationChanged::fire);
+        logger.info("loaded " + fromDb.size() + " namespaces into the activation cache, " + changes.size() + " changed");
+    }
+
+    public Optional<Instant> getActivatedUntil(String name) {
+        Instant cached = cached(name);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Namespace> fromDb = Namespace.findByName(name);
+        fromDb.ifPresent(this::put);
+        return fromDb.map(namespace -> namespace.activatedUntil);
+    }
+
+    public void put(Namespace namespace) {
+        if (namespace.name == null || namespace.activatedUntil == null) {
+            return;
+        }
+        Entry entry = new Entry(namespace.id, namespace.activatedUntil, writes.incrementAndGet());
+        AtomicReference<Entry> previous = new AtomicReference<>();
+        Entry result = entriesByName.compute(namespace.name, (name, current) -> {
+            previous.set(current);
+            return current != null && current.supersedes(entry) ? current : entry;
+        });
+        namesById.put(namespace.id, namespace.name);
+        Instant previousActivatedUntil = previous.get() == null ? null : previous.get().activatedUntil();
+        if (!Objects.equals(previousActivatedUntil, result.activatedUntil())) {
+            activationChanged.fire(new NamespaceActivationChanged(namespace.name, result.activatedUntil()));
+        }
+    }
+
+    public void remove(Namespace namespace) {
+        removeById(namespace.id);
+    }
+
+    public void removeById(ObjectId id) {
+        tombstones.put(id, writes.incrementAndGet());
+        String name = namesById.remove(id);
+        if (name == null) {
+            return;
+        }
+        Entry current = entriesByName.get(name);
+        if (current != null && current.id().equals(id) && entriesByName.remove(name, current)) {
+            activationChanged.fire(new NamespaceActivationChanged(name, null));
+        }
+    }
+
+    public int size() {
+        return entriesByName.size();
+    }
+
+    public long countActive(Instant now) {
+        return entriesByName.values().stream().filter(entry -> entry.activatedUntil().isAfter(now)).count();
+    }
+
+    /**
+     * @return the activatedUntil of all namespaces known to the cache
+     */
+    public Map<String, Instant> snapshot() {
+        Map<String, Instant> snapshot = new HashMap<>();
+        entriesByName.forEach((name, entry) -> snapshot.put(name, entry.activatedUntil()));
+        return snapshot;
+    }
+
+    /**
+     * @return the cached activatedUntil of the namespace without falling back to the database, null if unknown
+     */
+    public Instant cached(String name) {
+        Entry entry = entriesByName.get(name);
+        return entry == null ? null : entry.activatedUntil();
+    }
+}
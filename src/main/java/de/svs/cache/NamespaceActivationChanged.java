@@ -0,0 +1,15 @@
+package de.svs.cache;
+
+import java.time.Instant;
+
+/**
+ * Fired by the {@link NamespaceActivationCache} whenever the activatedUntil of a namespace has changed.
+ *
+ * @param activatedUntil the new activatedUntil, null if the namespace has been removed
+ */
+public record NamespaceActivationChanged(String name, Instant activatedUntil) {
+
+    public boolean removed() {
+        return activatedUntil == null;
+    }
+}
@@ -0,0 +1,181 @@
+package de.svs.cache;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import de.svs.Namespace;
+import de.svs.ResumeToken;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.bson.BsonDocument;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows the change stream of the namespaces collection and applies inserts, updates and deletes
+ * to the {@link NamespaceActivationCache}, so that every replica sees the activations of the other replicas.
+ * <p>
+ * After a disconnect the stream is resumed from the last seen token. The token is only kept in memory: a replica
+ * that starts reloads the cache anyway, so it starts at the current position. If the token is no longer part of
+ * the oplog, the cache is reloaded completely and the stream is restarted from the current position.
+ */
+@ApplicationScoped
+public class NamespaceChangeStreamListener {
+
+    private static final Logger logger = Logger.getLogger(NamespaceChangeStreamListener.class);
+
+    // earlier versions persisted the resume tokens as ResumeToken, one per pod
+    private static final String PERSISTED_RESUME_TOKEN_ID_PREFIX = "namespaces-change-stream";
+
+    // InvalidResumeToken, ChangeStreamFatalError, ChangeStreamHistoryLost
+    private static final Set<Integer> EXPIRED_RESUME_TOKEN_ERROR_CODES = Set.of(260, 280, 286);
+
+    @Inject
+    NamespaceActivationCache namespaceActivationCache;
+
+    @ConfigProperty(name = "namespace.change-stream.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "namespace.change-stream.retryDelay", defaultValue = "5s")
+    Duration retryDelay;
+
+    private volatile boolean running;
+    private Thread thread;
+    private BsonDocument resumeToken;
+
+    void onStart(@Observes StartupEvent event) {
+        removePersistedResumeTokens();
+        if (!enabled) {
+            logger.info("change stream listener has been disabled");
+            return;
+        }
+        running = true;
+        thread = Thread.ofPlatform().name("namespace-change-stream").daemon().start(this::run);
+    }
+
+    void onStop(@Observes ShutdownEvent event) throws InterruptedException {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * @return number of removed resume tokens
+     */
+    long removePersistedResumeTokens() {
+        try {
+            return ResumeToken.<ResumeToken>mongoCollection()
+                    .deleteMany(Filters.regex("_id", "^" + PERSISTED_RESUME_TOKEN_ID_PREFIX))
+                    .getDeletedCount();
+        } catch (MongoException e) {
+            logger.warn("could not remove persisted resume tokens of namespaces change stream", e);
+            return 0;
+        }
+    }
+
+    private void run() {
+        while (running) {
+            step();
+        }
+    }
+
+    void resumeAfter(BsonDocument token) {
+        resumeToken = token;
+    }
+
+    /**
+     * Follows the stream until it ends, is invalidated or fails.
+     */
+    void step() {
+        try {
+            follow();
+        } catch (MongoException e) {
+            onStreamFailure(e);
+        } catch (RuntimeException e) {
+            logger.error("unexpected error in namespaces change stream, resuming in " + retryDelay, e);
+            sleep(retryDelay);
+        }
+    }
+
+    void onStreamFailure(MongoException e) {
+        if (EXPIRED_RESUME_TOKEN_ERROR_CODES.contains(e.getCode())) {
+            logger.warn("resume token of namespaces change stream expired, doing a full resync", e);
+            resumeToken = null;
+        } else if (running) {
+            logger.warn("namespaces change stream interrupted, resuming in " + retryDelay, e);
+            sleep(retryDelay);
+        }
+    }
+
+    boolean hasResumeToken() {
+        return resumeToken != null;
+    }
+
+    private void follow() {
+        var changeStream = Namespace.<Namespace>mongoCollection()
+                .watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (resumeToken != null) {
+            changeStream = changeStream.resumeAfter(resumeToken);
+        }
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Namespace>> cursor = changeStream.cursor()) {
+            if (resumeToken == null) {
+                // the stream is open, so everything written from now on is seen; pick up the rest with a full reload
+                namespaceActivationCache.reload();
+            }
+            logger.info("following namespaces change stream");
+            while (running) {
+                ChangeStreamDocument<Namespace> change = cursor.tryNext();
+                if (change != null && !apply(change)) {
+                    resumeToken = null;
+                    return;
+                }
+                BsonDocument token = cursor.getResumeToken();
+                if (token != null) {
+                    resumeToken = token;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false if the stream has been invalidated and has to be reopened
+     */
+    boolean apply(ChangeStreamDocument<Namespace> change) {
+        switch (change.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> {
+                Namespace namespace = change.getFullDocument();
+                if (namespace != null) {
+                    namespaceActivationCache.put(namespace);
+                }
+            }
+            case DELETE -> namespaceActivationCache.removeById(change.getDocumentKey().getObjectId("_id").getValue());
+            case DROP, RENAME, DROP_DATABASE, INVALIDATE -> {
+                logger.info("namespaces change stream invalidated by " + change.getOperationType());
+                return false;
+            }
+            default -> logger.debug("ignoring change stream event " + change.getOperationType());
+        }
+        return true;
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
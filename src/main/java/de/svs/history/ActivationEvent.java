@@ -0,0 +1,35 @@
+package de.svs.history;
+
+import io.quarkus.mongodb.panache.PanacheMongoEntityBase;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import org.bson.codecs.pojo.annotations.BsonId;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+
+/**
+ * One activation or extension of a namespace. Events are only ever appended and expire after the retention period.
+ * <p>
+ * The id is created when the event happens, so ordering by id orders by time.
+ */
+@MongoEntity(collection = "activationEvents")
+public class ActivationEvent extends PanacheMongoEntityBase {
+    @BsonId
+    public ObjectId id = new ObjectId();
+    public String namespace;
+    public Instant timestamp;
+    public Instant activatedUntil;
+    /**
+     * The endpoint (or scheduler) that activated the namespace, e.g. "extendAndWait".
+     */
+    public String source;
+
+    public static ActivationEvent create(String namespace, Instant activatedUntil, String source) {
+        ActivationEvent event = new ActivationEvent();
+        event.namespace = namespace;
+        event.timestamp = Instant.now();
+        event.activatedUntil = activatedUntil;
+        event.source = source;
+        return event;
+    }
+}
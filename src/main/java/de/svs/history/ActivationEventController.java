@@ -0,0 +1,101 @@
+package de.svs.history;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.unchecked.Unchecked;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Read access to the {@link ActivationEventLog}, page by page or as a live tail.
+ * <p>
+ * Both use the id of the last seen event as cursor. The tail sends it as SSE event id, so a reconnecting
+ * EventSource resumes where it stopped via Last-Event-ID. Without a cursor the tail starts with the events
+ * that settle from now on.
+ */
+@Path("/namespace/events")
+public class ActivationEventController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    @Inject
+    ActivationEventLog activationEventLog;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    Sse sse;
+
+    @ConfigProperty(name = "namespace.events.settleDelay", defaultValue = "5s")
+    Duration settleDelay;
+
+    @ConfigProperty(name = "namespace.events.tailInterval", defaultValue = "2s")
+    Duration tailInterval;
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @RunOnVirtualThread
+    public ActivationEventPage page(@QueryParam("namespace") Optional<String> namespace,
+                                    @QueryParam("after") Optional<String> after,
+                                    @QueryParam("limit") @DefaultValue("100") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("limit has to be between 1 and " + MAX_LIMIT);
+        }
+        return activationEventLog.find(namespace, validCursor(after), limit, settledBefore());
+    }
+
+    @GET
+    @Path("/stream")
+    @RestStreamElementType(MediaType.TEXT_PLAIN)
+    public Multi<OutboundSseEvent> tail(@QueryParam("namespace") Optional<String> namespace,
+                                        @QueryParam("after") Optional<String> after,
+                                        @HeaderParam("Last-Event-ID") Optional<String> lastEventId) {
+        Optional<String> start = validCursor(lastEventId.or(() -> after))
+                .or(() -> Optional.of(new ObjectId((int) settledBefore().getEpochSecond(), 0).toHexString()));
+        AtomicReference<Optional<String>> cursor = new AtomicReference<>(start);
+        return Multi.createFrom().ticks().startingAfter(Duration.ZERO).every(tailInterval)
+                .onOverflow().drop()
+                .emitOn(Infrastructure.getDefaultWorkerPool())
+                .onItem().transformToIterable(tick -> {
+                    ActivationEventPage page = activationEventLog.find(namespace, cursor.get(), MAX_LIMIT, settledBefore());
+                    cursor.set(Optional.ofNullable(page.next()));
+                    return page.events();
+                })
+                .map(Unchecked.function(event -> sse.newEventBuilder()
+                        .id(event.id())
+                        .name("activation")
+                        .data(String.class, objectMapper.writeValueAsString(event))
+                        .build()));
+    }
+
+    private Instant settledBefore() {
+        return Instant.now().minus(settleDelay);
+    }
+
+    private static Optional<String> validCursor(Optional<String> cursor) {
+        if (cursor.isPresent() && !ObjectId.isValid(cursor.get())) {
+            throw new BadRequestException("invalid cursor " + cursor.get());
+        }
+        return cursor;
+    }
+}
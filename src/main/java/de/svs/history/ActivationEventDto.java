@@ -0,0 +1,10 @@
+package de.svs.history;
+
+import java.time.Instant;
+
+public record ActivationEventDto(String id, String namespace, Instant timestamp, Instant activatedUntil, String source) {
+
+    static ActivationEventDto of(ActivationEvent event) {
+        return new ActivationEventDto(event.id.toHexString(), event.namespace, event.timestamp, event.activatedUntil, event.source);
+    }
+}
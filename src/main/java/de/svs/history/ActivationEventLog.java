@@ -0,0 +1,185 @@
+package de.svs.history;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import de.svs.Namespace;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Append-only log of activations, kept in its own collection so that analyzing it never touches the namespaces collection.
+ * <p>
+ * Events are buffered in memory and written with unordered batched inserts, so an activation never waits for the log.
+ * Old events are removed by a TTL index after the retention period. Events that could not be written are put back
+ * into the buffer and retried with the next flushes, up to namespace.events.writeAttempts times.
+ * If the buffer is full, further events are dropped. Dropped events are counted in activation_events_dropped.
+ */
+@ApplicationScoped
+public class ActivationEventLog {
+
+    private static final Logger logger = Logger.getLogger(ActivationEventLog.class);
+
+    static final String TTL_INDEX = "timestamp_ttl";
+    static final String NAMESPACE_INDEX = "namespace_id";
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private record Pending(ActivationEvent event, int attempts) {
+    }
+
+    private final ConcurrentLinkedQueue<Pending> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger buffered = new AtomicInteger();
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "namespace.events.retention", defaultValue = "180d")
+    Duration retention;
+
+    @ConfigProperty(name = "namespace.events.batchSize", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "namespace.events.maxBuffered", defaultValue = "10000")
+    int maxBuffered;
+
+    @ConfigProperty(name = "namespace.events.writeAttempts", defaultValue = "3")
+    int writeAttempts;
+
+    private Counter droppedBufferFull;
+    private Counter droppedWriteFailed;
+
+    void onStart(@Observes StartupEvent event) {
+        droppedBufferFull = Counter.builder("activation_events_dropped").tag("reason", "buffer_full")
+                .description("Number of activation events that have not been logged").register(registry);
+        droppedWriteFailed = Counter.builder("activation_events_dropped").tag("reason", "write_failed")
+                .description("Number of activation events that have not been logged").register(registry);
+        MongoCollection<ActivationEvent> collection = ActivationEvent.mongoCollection();
+        collection.createIndex(Indexes.ascending("timestamp"),
+                new IndexOptions().name(TTL_INDEX).expireAfter(retention.toSeconds(), TimeUnit.SECONDS));
+        collection.createIndex(Indexes.ascending("namespace", "_id"), new IndexOptions().name(NAMESPACE_INDEX));
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        flush();
+    }
+
+    public void record(Namespace namespace, String source) {
+        record(namespace.name, namespace.activatedUntil, source);
+    }
+
+    public void recordAll(Collection<Namespace> namespaces, String source) {
+        namespaces.forEach(namespace -> record(namespace, source));
+    }
+
+    public void record(String namespace, Instant activatedUntil, String source) {
+        enqueue(new Pending(ActivationEvent.create(namespace, activatedUntil, source), 0));
+    }
+
+    private void enqueue(Pending pending) {
+        if (buffered.incrementAndGet() > maxBuffered) {
+            buffered.decrementAndGet();
+            droppedBufferFull.increment();
+            logger.warn("activation event log is full, dropping event for " + pending.event().namespace);
+            return;
+        }
+        buffer.add(pending);
+    }
+
+    @Scheduled(every = "${namespace.events.flushInterval:1s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void flush() {
+        // events put back by a failed insert are retried with the next flush, not in a loop within this one
+        int pending = buffered.get();
+        List<Pending> batch = new ArrayList<>(batchSize);
+        Pending event;
+        while (pending-- > 0 && (event = buffer.poll()) != null) {
+            buffered.decrementAndGet();
+            batch.add(event);
+            if (batch.size() == batchSize) {
+                insert(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        insert(batch);
+    }
+
+    private void insert(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            ActivationEvent.<ActivationEvent>mongoCollection()
+                    .insertMany(batch.stream().map(Pending::event).toList(), new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            // unordered, so only the events with an error are missing. Duplicates have been written by an earlier attempt.
+            List<Pending> failed = e.getWriteErrors().stream()
+                    .filter(error -> error.getCode() != DUPLICATE_KEY)
+                    .map(error -> batch.get(error.getIndex()))
+                    .toList();
+            retry(failed, e);
+        } catch (MongoException e) {
+            retry(batch, e);
+        }
+    }
+
+    private void retry(List<Pending> failed, MongoException cause) {
+        if (failed.isEmpty()) {
+            return;
+        }
+        int dropped = 0;
+        for (Pending pending : failed) {
+            int attempts = pending.attempts() + 1;
+            if (attempts >= writeAttempts) {
+                dropped++;
+            } else {
+                enqueue(new Pending(pending.event(), attempts));
+            }
+        }
+        droppedWriteFailed.increment(dropped);
+        logger.warn("could not write " + failed.size() + " activation events, retrying " + (failed.size() - dropped)
+                + ", dropping " + dropped, cause);
+    }
+
+    /**
+     * Events in the order they happened, starting after the given cursor.
+     *
+     * @param settledBefore only events before this instant are returned. Events are written in batches by every replica,
+     *                      so the most recent ones may still show up out of order.
+     */
+    public ActivationEventPage find(Optional<String> namespace, Optional<String> after, int limit, Instant settledBefore) {
+        Document query = new Document("_id", new Document("$lt", new ObjectId((int) settledBefore.getEpochSecond(), 0)));
+        after.map(ObjectId::new).ifPresent(cursor -> query.get("_id", Document.class).append("$gt", cursor));
+        namespace.ifPresent(name -> query.append("namespace", name));
+        List<ActivationEventDto> events = ActivationEvent.<ActivationEvent>find(query, new Document("_id", 1))
+                .page(0, limit)
+                .list()
+                .stream()
+                .map(ActivationEventDto::of)
+                .toList();
+        String next = events.isEmpty() ? after.orElse(null) : events.getLast().id();
+        return new ActivationEventPage(events, next);
+    }
+}
@@ -0,0 +1,9 @@
+package de.svs.history;
+
+import java.util.List;
+
+/**
+ * @param next cursor to pass as "after" to get the following page, also when this page is empty
+ */
+public record ActivationEventPage(List<ActivationEventDto> events, String next) {
+}
@@ -0,0 +1,117 @@
+package de.svs.keda;
+
+import de.svs.cache.NamespaceActivationCache;
+import de.svs.cache.NamespaceActivationChanged;
+import de.svs.keda.grpc.ExternalScaler;
+import de.svs.keda.grpc.GetMetricSpecResponse;
+import de.svs.keda.grpc.GetMetricsRequest;
+import de.svs.keda.grpc.GetMetricsResponse;
+import de.svs.keda.grpc.IsActiveResponse;
+import de.svs.keda.grpc.MetricSpec;
+import de.svs.keda.grpc.MetricValue;
+import de.svs.keda.grpc.ScaledObjectRef;
+import de.svs.scheduling.NamespaceExpired;
+import io.quarkus.grpc.GrpcService;
+import io.smallrye.common.annotation.Blocking;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.operators.multi.processors.BroadcastProcessor;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.time.Instant;
+import java.util.concurrent.Flow;
+
+/**
+ * Implementation of the external-push scaler protocol of KEDA.
+ * <p>
+ * Answers with the same state as {@link de.svs.NamespaceController#isNamespaceActive(String)}: a namespace is active
+ * as long as its activatedUntil lies in the future. StreamIsActive pushes every activation and expiry of the namespace
+ * to KEDA the moment it happens, so KEDA does not have to poll.
+ * <p>
+ * The namespace is taken from the "namespace" entry of the scaler metadata, falling back to the namespace
+ * of the ScaledObject.
+ */
+@GrpcService
+public class KedaExternalScaler implements ExternalScaler {
+
+    private static final Logger logger = Logger.getLogger(KedaExternalScaler.class);
+
+    static final String METRIC_NAME = "namespace-active";
+
+    private record NamespaceChanged(String name) {
+    }
+
+    private final Flow.Processor<NamespaceChanged, NamespaceChanged> changes = BroadcastProcessor.<NamespaceChanged>create().serialized();
+
+    @Inject
+    NamespaceActivationCache namespaceActivationCache;
+
+    void onActivationChanged(@Observes NamespaceActivationChanged event) {
+        changes.onNext(new NamespaceChanged(event.name()));
+    }
+
+    void onExpired(@Observes NamespaceExpired event) {
+        changes.onNext(new NamespaceChanged(event.name()));
+    }
+
+    @Override
+    @Blocking
+    public Uni<IsActiveResponse> isActive(ScaledObjectRef request) {
+        return Uni.createFrom().item(() -> isActiveResponse(namespace(request)));
+    }
+
+    @Override
+    public Multi<IsActiveResponse> streamIsActive(ScaledObjectRef request) {
+        String namespace = namespace(request);
+        logger.debug("KEDA is streaming the activation state of " + namespace);
+        Multi<NamespaceChanged> updates = Multi.createFrom().publisher(changes)
+                .filter(change -> change.name().equals(namespace));
+        return Multi.createBy().merging()
+                .streams(Multi.createFrom().item(new NamespaceChanged(namespace)), updates)
+                .onOverflow().dropPreviousItems()
+                .emitOn(Infrastructure.getDefaultWorkerPool())
+                .map(change -> isActiveResponse(namespace))
+                .skip().repeatedItems();
+    }
+
+    @Override
+    public Uni<GetMetricSpecResponse> getMetricSpec(ScaledObjectRef request) {
+        return Uni.createFrom().item(GetMetricSpecResponse.newBuilder()
+                .addMetricSpecs(MetricSpec.newBuilder()
+                        .setMetricName(METRIC_NAME)
+                        .setTargetSize(1)
+                        .setTargetSizeFloat(1))
+                .build());
+    }
+
+    @Override
+    @Blocking
+    public Uni<GetMetricsResponse> getMetrics(GetMetricsRequest request) {
+        return Uni.createFrom().item(() -> {
+            int active = isActive(namespace(request.getScaledObjectRef())) ? 1 : 0;
+            return GetMetricsResponse.newBuilder()
+                    .addMetricValues(MetricValue.newBuilder()
+                            .setMetricName(METRIC_NAME)
+                            .setMetricValue(active)
+                            .setMetricValueFloat(active))
+                    .build();
+        });
+    }
+
+    private IsActiveResponse isActiveResponse(String namespace) {
+        return IsActiveResponse.newBuilder().setResult(isActive(namespace)).build();
+    }
+
+    private boolean isActive(String namespace) {
+        return namespaceActivationCache.getActivatedUntil(namespace)
+                .map(activatedUntil -> activatedUntil.isAfter(Instant.now()))
+                .orElse(false);
+    }
+
+    private static String namespace(ScaledObjectRef ref) {
+        return ref.getScalerMetadataOrDefault("namespace", ref.getNamespace());
+    }
+}
@@ -1,25 +1,78 @@
 package de.svs.metrics;
 
-import de.svs.Namespace;
+import de.svs.cache.NamespaceActivationCache;
+import de.svs.cache.NamespaceActivationChanged;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import io.quarkus.runtime.Startup;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Gauges about the namespaces known by the activator.
+ * <p>
+ * All values are read from the {@link NamespaceActivationCache}, so a scrape does not cause any database queries.
+ * Besides the totals there is a pair of gauges per namespace, so a single scrape tells whether every namespace is active.
+ */
 @Startup
 @ApplicationScoped
 public class CustomNamespaceActivatorMetrics {
 
+    private final MeterRegistry registry;
+    private final NamespaceActivationCache namespaceActivationCache;
+    private final ConcurrentMap<String, List<Gauge>> namespaceGauges = new ConcurrentHashMap<>();
+
     @Inject
-    public CustomNamespaceActivatorMetrics(MeterRegistry registry) {
-        Gauge.builder("active_namespaces", Namespace::countActiveNamespaces)
+    public CustomNamespaceActivatorMetrics(MeterRegistry registry, NamespaceActivationCache namespaceActivationCache) {
+        this.registry = registry;
+        this.namespaceActivationCache = namespaceActivationCache;
+
+        Gauge.builder("active_namespaces", namespaceActivationCache, cache -> cache.countActive(Instant.now()))
                 .description("Number of active namespaces")
                 .register(registry);
 
-        Gauge.builder("total_namespaces", Namespace::countTotalNamespaces)
+        Gauge.builder("total_namespaces", namespaceActivationCache, NamespaceActivationCache::size)
                 .description("Total number of namespaces known by the activator")
                 .register(registry);
+
+        namespaceActivationCache.snapshot().keySet().forEach(this::registerNamespaceGauges);
+    }
+
+    void onActivationChanged(@Observes NamespaceActivationChanged event) {
+        if (event.removed()) {
+            List<Gauge> gauges = namespaceGauges.remove(event.name());
+            if (gauges != null) {
+                gauges.forEach(registry::remove);
+            }
+        } else {
+            registerNamespaceGauges(event.name());
+        }
     }
 
+    private void registerNamespaceGauges(String name) {
+        namespaceGauges.computeIfAbsent(name, n -> List.of(
+                Gauge.builder("namespace_active", namespaceActivationCache, cache -> isActive(cache.cached(n)))
+                        .description("1 if the namespace is active, 0 otherwise")
+                        .tags(Tags.of("namespace", n))
+                        .register(registry),
+                Gauge.builder("namespace_activated_until_seconds", namespaceActivationCache, cache -> epochSeconds(cache.cached(n)))
+                        .description("Time until which the namespace is activated, in seconds since the epoch")
+                        .tags(Tags.of("namespace", n))
+                        .register(registry)));
+    }
+
+    private static double isActive(Instant activatedUntil) {
+        return activatedUntil != null && activatedUntil.isAfter(Instant.now()) ? 1 : 0;
+    }
+
+    private static double epochSeconds(Instant activatedUntil) {
+        return activatedUntil == null ? Double.NaN : activatedUntil.getEpochSecond();
+    }
 }
@@ -0,0 +1,231 @@
+package de.svs.prediction;
+
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import de.svs.Namespace;
+import de.svs.cache.NamespaceActivationCache;
+import de.svs.history.ActivationEvent;
+import de.svs.history.ActivationEventLog;
+import de.svs.scheduling.LeaderElection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.bson.Document;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Activates namespaces shortly before they are likely to be used, so regular users do not wait for a cold start.
+ * <p>
+ * The likelihood is learned from the {@link ActivationEventLog}: for every namespace a histogram counts on how many days
+ * of the last weeks it has been activated in each hour of the week. If the share of weeks with an activation in the
+ * upcoming hour reaches the threshold, the namespace is activated for a short time from the start of that hour.
+ * <p>
+ * Pre-activations never push the number of active namespaces above the budget, the most likely candidates go first.
+ * Candidates that are active already are only extended, they do not count against the budget.
+ * They are logged with source "preactivation" and not counted as usage, so they do not reinforce themselves.
+ * <p>
+ * Users of a pre-activated namespace do not activate it, so without another signal its hour would fade out of the
+ * histogram after a few successful weeks and the cold starts would come back. So a pre-activation counts as used if
+ * the namespace is used during its window: extensions are logged anyway, requests of its status are logged once per
+ * window with source "preactivation-used".
+ * <p>
+ * Only the leader pre-activates.
+ */
+@ApplicationScoped
+public class PreActivationScheduler {
+
+    private static final Logger logger = Logger.getLogger(PreActivationScheduler.class);
+
+    static final String SOURCE = "preactivation";
+    static final String USED_SOURCE = "preactivation-used";
+
+    @Inject
+    NamespaceActivationCache namespaceActivationCache;
+
+    @Inject
+    ActivationEventLog activationEventLog;
+
+    @Inject
+    LeaderElection leaderElection;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "namespace.preactivation.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "namespace.preactivation.zone", defaultValue = "Europe/Berlin")
+    ZoneId zone;
+
+    @ConfigProperty(name = "namespace.preactivation.lookbackWeeks", defaultValue = "4")
+    int lookbackWeeks;
+
+    @ConfigProperty(name = "namespace.preactivation.threshold", defaultValue = "0.5")
+    double threshold;
+
+    @ConfigProperty(name = "namespace.preactivation.leadTime", defaultValue = "30m")
+    Duration leadTime;
+
+    @ConfigProperty(name = "namespace.preactivation.duration", defaultValue = "2h")
+    Duration duration;
+
+    @ConfigProperty(name = "namespace.preactivation.maxActive", defaultValue = "50")
+    int maxActive;
+
+    @ConfigProperty(name = "namespace.preactivation.histogramRefresh", defaultValue = "1h")
+    Duration histogramRefresh;
+
+    private volatile Map<String, UsageHistogram> histograms = Map.of();
+    private volatile Instant histogramsBuiltAt = Instant.EPOCH;
+    // end of the pre-activation windows this replica has logged a use of, by namespace
+    private final Map<String, Instant> usedWindows = new ConcurrentHashMap<>();
+    private Counter preActivations;
+
+    @PostConstruct
+    void init() {
+        preActivations = Counter.builder("namespace_preactivations")
+                .description("Number of namespaces activated ahead of their predicted use")
+                .register(registry);
+    }
+
+    @Scheduled(every = "${namespace.preactivation.interval:15m}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduled() {
+        if (!enabled || !leaderElection.isLeader()) {
+            return;
+        }
+        preActivate(Instant.now());
+    }
+
+    /**
+     * @return the namespaces that have been pre-activated
+     */
+    List<String> preActivate(Instant now) {
+        if (now.isAfter(histogramsBuiltAt.plus(histogramRefresh))) {
+            refreshHistograms(now);
+        }
+
+        ZonedDateTime slot = now.plus(leadTime).atZone(zone).truncatedTo(ChronoUnit.HOURS);
+        Instant slotStart = slot.toInstant();
+        Instant activatedUntil = slotStart.plus(duration);
+        // extending a namespace that is active already does not add an active namespace, so only cold ones need budget
+        long budget = Math.max(0, maxActive - namespaceActivationCache.countActive(now));
+
+        record Candidate(String name, double probability, boolean active) {
+        }
+        List<Candidate> candidates = histograms.entrySet()
+                .stream()
+                .map(entry -> {
+                    Instant current = namespaceActivationCache.cached(entry.getKey());
+                    double probability = entry.getValue().probability(slot.getDayOfWeek(), slot.getHour(), lookbackWeeks);
+                    return current == null || !current.isBefore(activatedUntil) || probability < threshold
+                            ? null
+                            : new Candidate(entry.getKey(), probability, current.isAfter(now));
+                })
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingDouble(Candidate::probability).reversed().thenComparing(Candidate::name))
+                .toList();
+        List<String> cold = candidates.stream().filter(candidate -> !candidate.active()).map(Candidate::name).toList();
+        if (cold.size() > budget) {
+            logger.info("budget of " + maxActive + " active namespaces only allows " + budget + " of " + cold.size() + " pre-activations");
+        }
+        List<String> selected = new ArrayList<>();
+        candidates.stream().filter(Candidate::active).map(Candidate::name).forEach(selected::add);
+        cold.stream().limit(budget).forEach(selected::add);
+
+        for (String name : selected) {
+            Namespace.extendActivatedUntil(name, activatedUntil).ifPresent(namespace -> {
+                namespaceActivationCache.put(namespace);
+                activationEventLog.record(namespace, SOURCE);
+            });
+        }
+        if (!selected.isEmpty()) {
+            preActivations.increment(selected.size());
+            logger.info("pre-activated " + selected + " for " + slot + " until " + activatedUntil);
+        }
+        return selected;
+    }
+
+    /**
+     * Logs a use of the namespace if it is pre-activated, see the class comment. Returns right away,
+     * the lookup runs on the worker pool.
+     */
+    public void recordUse(String namespace) {
+        if (enabled) {
+            Infrastructure.getDefaultWorkerPool().execute(() -> recordUse(namespace, Instant.now()));
+        }
+    }
+
+    /**
+     * @return true if a use has been logged
+     */
+    boolean recordUse(String namespace, Instant now) {
+        Instant usedUntil = usedWindows.get(namespace);
+        if (usedUntil != null && usedUntil.isAfter(now)) {
+            return false;
+        }
+        ActivationEvent preActivation = ActivationEvent.<ActivationEvent>mongoCollection()
+                .find(Filters.and(Filters.eq("namespace", namespace), Filters.eq("source", SOURCE),
+                        Filters.lte("timestamp", now), Filters.gt("activatedUntil", now)))
+                .sort(Sorts.descending("_id"))
+                .first();
+        if (preActivation == null) {
+            return false;
+        }
+        usedWindows.values().removeIf(until -> !until.isAfter(now));
+        usedWindows.put(namespace, preActivation.activatedUntil);
+        activationEventLog.record(namespace, preActivation.activatedUntil, USED_SOURCE);
+        return true;
+    }
+
+    /**
+     * Counts, per namespace and hour of the week, the days with at least one activation in the lookback period.
+     */
+    void refreshHistograms(Instant now) {
+        String timezone = zone.getId();
+        Instant from = now.minus(lookbackWeeks * 7L, ChronoUnit.DAYS);
+        Map<String, UsageHistogram> result = new HashMap<>();
+        ActivationEvent.<ActivationEvent>mongoCollection().aggregate(List.of(
+                        Aggregates.match(Filters.and(Filters.gte("timestamp", from), Filters.ne("source", SOURCE))),
+                        Aggregates.project(Projections.fields(
+                                Projections.include("namespace"),
+                                Projections.computed("dayOfWeek", new Document("$isoDayOfWeek", new Document("date", "$timestamp").append("timezone", timezone))),
+                                Projections.computed("hour", new Document("$hour", new Document("date", "$timestamp").append("timezone", timezone))),
+                                Projections.computed("day", new Document("$dateToString", new Document("format", "%Y-%m-%d")
+                                        .append("date", "$timestamp").append("timezone", timezone))))),
+                        // one per day, however often the namespace has been activated in that hour
+                        Aggregates.group(new Document("namespace", "$namespace").append("dayOfWeek", "$dayOfWeek")
+                                .append("hour", "$hour").append("day", "$day")),
+                        Aggregates.group(new Document("namespace", "$_id.namespace").append("dayOfWeek", "$_id.dayOfWeek")
+                                .append("hour", "$_id.hour"), Accumulators.sum("days", 1))), Document.class)
+                .forEach(slot -> {
+                    Document id = slot.get("_id", Document.class);
+                    result.computeIfAbsent(id.getString("namespace"), name -> new UsageHistogram())
+                            .add(DayOfWeek.of(id.getInteger("dayOfWeek")), id.getInteger("hour"), slot.getInteger("days"));
+                });
+        histograms = result;
+        histogramsBuiltAt = now;
+        logger.info("built usage histograms of " + result.size() + " namespaces");
+    }
+}
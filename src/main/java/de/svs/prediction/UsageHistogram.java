@@ -0,0 +1,26 @@
+package de.svs.prediction;
+
+import java.time.DayOfWeek;
+
+/**
+ * On how many days a namespace has been activated in every hour of the week.
+ */
+class UsageHistogram {
+
+    private final int[] days = new int[7 * 24];
+
+    void add(DayOfWeek dayOfWeek, int hour, int count) {
+        days[index(dayOfWeek, hour)] += count;
+    }
+
+    /**
+     * @return share of the observed weeks in which the namespace has been activated in this hour of the week
+     */
+    double probability(DayOfWeek dayOfWeek, int hour, int weeks) {
+        return Math.min(1.0, days[index(dayOfWeek, hour)] / (double) weeks);
+    }
+
+    private static int index(DayOfWeek dayOfWeek, int hour) {
+        return (dayOfWeek.getValue() - 1) * 24 + hour;
+    }
+}
@@ -1,24 +1,37 @@
 package de.svs.scheduling;
 
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
 import de.svs.Namespace;
+import de.svs.cache.NamespaceActivationCache;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
+import io.fabric8.kubernetes.api.model.NamespaceList;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.quarkus.scheduler.Scheduled;
 import io.quarkus.scheduler.ScheduledExecution;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class DeleteDeactivatedNamespaces {
 
     private static final Logger logger = Logger.getLogger(DeleteDeactivatedNamespaces.class);
     private final KubernetesClient kubernetesClient;
+    private final NamespaceActivationCache namespaceActivationCache;
+    private final NamespaceDeleter namespaceDeleter;
+    private final LeaderElection leaderElection;
 
     @ConfigProperty(name = "namespace.sync-db-k8s.afterDaysOfInactivity", defaultValue = "30")
     int afterDaysOfInactivity;
@@ -26,17 +39,37 @@ public class DeleteDeactivatedNamespaces {
     @ConfigProperty(name = "namespace.sync-db-k8s.removeDeletedNamespacesFromDatabase", defaultValue = "true")
     boolean removeDeletedNamespacesFromDatabase;
 
+    @ConfigProperty(name = "namespace.sync-db-k8s.pageSize", defaultValue = "500")
+    int pageSize;
+
     @ConfigProperty(name = "namespace.sync-db-k8s.namespacesNotToRemove", defaultValue = "main")
     List<String> namespacesNotToDelete;
 
-    public DeleteDeactivatedNamespaces(KubernetesClient kubernetesClient) {
+    public DeleteDeactivatedNamespaces(KubernetesClient kubernetesClient, NamespaceActivationCache namespaceActivationCache,
+                                       NamespaceDeleter namespaceDeleter, LeaderElection leaderElection) {
         this.kubernetesClient = kubernetesClient;
+        this.namespaceActivationCache = namespaceActivationCache;
+        this.namespaceDeleter = namespaceDeleter;
+        this.leaderElection = leaderElection;
     }
 
     @Scheduled(cron = "{namespace.sync-db-k8s.cron}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
-    void syncAndCleanup(ScheduledExecution execution) {
+    void cleanup(ScheduledExecution execution) {
+        if (!leaderElection.isLeader()) {
+            logger.info("not leader, skipping cleanup");
+            return;
+        }
         cleanUpInactiveNamespaces();
-        if (removeDeletedNamespacesFromDatabase) {
+    }
+
+    /**
+     * Safety net for deletions the {@link NamespaceWatcher} has missed, so it runs far less often than the cleanup.
+     */
+    @Scheduled(cron = "{namespace.sync-db-k8s.resyncCron}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void resync(ScheduledExecution execution) {
+        if (!leaderElection.isLeader()) {
+            logger.info("not leader, skipping sync");
+        } else if (removeDeletedNamespacesFromDatabase) {
             syncDatabaseWithKubernetesNamespaces();
         } else {
             logger.info("removing Namespaces from Database has been disabled");
@@ -59,27 +92,22 @@ public class DeleteDeactivatedNamespaces {
      * - Deletion date: 01.11.2024 + 2 days (activation time) + 30 days (inactivity period) = 03.12.2024
      * <p>
      * On 03.12.2024, the namespace will be deleted.
+     * <p>
+     * The deletion itself runs concurrently, see {@link NamespaceDeleter}.
      */
     private void cleanUpInactiveNamespaces() {
         Instant xDaysAgo = Instant.now().minus(afterDaysOfInactivity, ChronoUnit.DAYS);
         List<Namespace> namespacesToDelete = Namespace.findByActivatedUntilOlderThan(xDaysAgo);
         logger.info("found namespaces to delete: " + namespacesToDelete.stream().map(ns -> ns.name).toList());
+        List<Namespace> deletable = new ArrayList<>();
         for (Namespace namespaceFromDb : namespacesToDelete) {
             if (namespacesNotToDelete.contains(namespaceFromDb.name)) {
                 logger.warn("attempted to delete protected namespace: " + namespaceFromDb.name);
-            } else{
-                logger.info("deleting namespace: " + namespaceFromDb.name + " it's last activation time was: " + namespaceFromDb.activatedUntil);
-                io.fabric8.kubernetes.api.model.Namespace k8sNamespace = kubernetesClient.namespaces().withName(namespaceFromDb.name).get();
-                if (k8sNamespace != null) {
-                    kubernetesClient.namespaces().withName(namespaceFromDb.name).delete();
-                    namespaceFromDb.delete();
-                    logger.info("deleted namespace in k8s and db: " + namespaceFromDb.name);
-                } else {
-                    namespaceFromDb.delete();
-                    logger.info("namespace " + namespaceFromDb.name + " not found, deleted it only from db");
-                }
+            } else {
+                deletable.add(namespaceFromDb);
             }
         }
+        namespaceDeleter.delete(deletable);
         logger.info("finished deleting namespaces");
     }
 
@@ -90,36 +118,69 @@ public class DeleteDeactivatedNamespaces {
      * improving the accuracy of metrics and preventing stale data.
      * <p>
      * Behavior:
-     * - The method checks all namespaces stored in the database.
+     * - The names of all Kubernetes namespaces are read page by page.
+     * - The database is streamed with a cursor that only fetches name and id of each namespace.
      * - If a namespace is not found in the Kubernetes cluster's namespace list, it is deleted from the database.
+     *   Stale namespaces are deleted in batches.
      * - A grace period of 5 minutes is applied for newly created namespaces to ensure they have time to sync with Kubernetes.
      * <p>
      * Notes:
-     * - The method runs periodically, as defined by the configured cron expression.
+     * - The method runs periodically, as defined by namespace.sync-db-k8s.resyncCron.
      */
     private void syncDatabaseWithKubernetesNamespaces() {
-        Set<String> k8sNamespaceList = kubernetesClient.namespaces()
-                .list()
-                .getItems()
-                .stream()
-                .map(namespace -> namespace.getMetadata().getName())
-                .collect(Collectors.toSet());
-
-        for (Namespace namespaceFromDb : Namespace.getAll()) {
-            logger.debug("checking namespace " + namespaceFromDb.name + " " + namespaceFromDb.id.getDate());
-            // grace period, if namespace has just been created but is not known to k8s yet
-            Instant instantFromDb = Instant.ofEpochSecond(namespaceFromDb.id.getTimestamp());
-            Instant instantFromDbWithGracePeriod = instantFromDb.plus(5, ChronoUnit.MINUTES);
-            if (Instant.now().isAfter(instantFromDbWithGracePeriod)) {
-                if (!k8sNamespaceList.contains(namespaceFromDb.name)) {
-                    logger.info("deleting namespace in database: " + namespaceFromDb.name);
-                    namespaceFromDb.delete();
+        Set<String> k8sNamespaceNames = listKubernetesNamespaceNames();
+
+        // grace period, if namespace has just been created but is not known to k8s yet
+        Instant createdBefore = Instant.now().minus(5, ChronoUnit.MINUTES);
+        Bson oldEnough = Filters.lt("_id", new ObjectId((int) createdBefore.getEpochSecond(), 0));
+
+        List<ObjectId> staleIds = new ArrayList<>();
+        int deleted = 0;
+        try (MongoCursor<Document> cursor = Namespace.<Namespace>mongoCollection()
+                .withDocumentClass(Document.class)
+                .find(oldEnough)
+                .projection(Projections.include("name"))
+                .batchSize(pageSize)
+                .cursor()) {
+            while (cursor.hasNext()) {
+                Document namespaceFromDb = cursor.next();
+                String name = namespaceFromDb.getString("name");
+                if (!k8sNamespaceNames.contains(name)) {
+                    logger.info("deleting namespace in database: " + name);
+                    staleIds.add(namespaceFromDb.getObjectId("_id"));
+                    if (staleIds.size() >= pageSize) {
+                        deleted += deleteFromDatabase(staleIds);
+                    }
                 } else {
-                    logger.debug("namespace " + namespaceFromDb.name + " found in k8s");
+                    logger.debug("namespace " + name + " found in k8s");
                 }
-            } else {
-                logger.info("namespace " + namespaceFromDb.name + " ignored since it is not old enough for automatic removal from db");
             }
         }
+        deleted += deleteFromDatabase(staleIds);
+        logger.info("removed " + deleted + " namespaces from the database that do not exist in k8s anymore");
+    }
+
+    private Set<String> listKubernetesNamespaceNames() {
+        Set<String> names = new HashSet<>();
+        String continueToken = null;
+        do {
+            NamespaceList page = kubernetesClient.namespaces().list(new ListOptionsBuilder()
+                    .withLimit((long) pageSize)
+                    .withContinue(continueToken)
+                    .build());
+            page.getItems().forEach(namespace -> names.add(namespace.getMetadata().getName()));
+            continueToken = page.getMetadata() == null ? null : page.getMetadata().getContinue();
+        } while (continueToken != null && !continueToken.isEmpty());
+        return names;
+    }
+
+    private int deleteFromDatabase(List<ObjectId> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long deleted = Namespace.<Namespace>mongoCollection().deleteMany(Filters.in("_id", ids)).getDeletedCount();
+        ids.forEach(namespaceActivationCache::removeById);
+        ids.clear();
+        return (int) deleted;
     }
 }
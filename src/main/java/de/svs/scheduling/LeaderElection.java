@@ -0,0 +1,236 @@
+package de.svs.scheduling;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderCallbacks;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderElectionConfigBuilder;
+import io.fabric8.kubernetes.client.extended.leaderelection.resourcelock.LeaderElectionRecord;
+import io.fabric8.kubernetes.client.extended.leaderelection.resourcelock.LeaseLock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Elects one replica of the activator as leader with a Kubernetes Lease, so that the cleanup runs once per cluster
+ * instead of once per pod.
+ * <p>
+ * {@link #isLeader()} only returns true while the lease has been renewed recently. A leader that cannot reach the API
+ * server anymore stops acting on its own before another replica can take over the lease, so two replicas never
+ * delete namespaces at the same time. Callers doing a series of destructive operations should check it before each of them.
+ * <p>
+ * A replica that lost the lease, e.g. after a failed renewal, takes part in the election again right away,
+ * so the cleanup keeps running somewhere even if every replica has lost the lease once.
+ * <p>
+ * The service account needs get, create and update on coordination.k8s.io/leases in the lease namespace, see the README.
+ * Without them no replica ever becomes leader, so failures to read or create the lease are logged as errors.
+ * <p>
+ * If leader election is disabled, e.g. for a single replica or in tests, every replica is leader.
+ */
+@ApplicationScoped
+public class LeaderElection {
+
+    private static final Logger logger = Logger.getLogger(LeaderElection.class);
+
+    @Inject
+    KubernetesClient kubernetesClient;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "leader-election.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "leader-election.leaseName", defaultValue = "namespace-activator-leader")
+    String leaseName;
+
+    @ConfigProperty(name = "leader-election.namespace")
+    Optional<String> leaseNamespace;
+
+    @ConfigProperty(name = "leader-election.leaseDuration", defaultValue = "15s")
+    Duration leaseDuration;
+
+    @ConfigProperty(name = "leader-election.renewDeadline", defaultValue = "10s")
+    Duration renewDeadline;
+
+    @ConfigProperty(name = "leader-election.retryPeriod", defaultValue = "2s")
+    Duration retryPeriod;
+
+    private final String identity = Optional.ofNullable(System.getenv("HOSTNAME")).orElse(UUID.randomUUID().toString());
+
+    private volatile boolean running;
+    private volatile boolean leading;
+    private volatile Instant lastRenewal = Instant.EPOCH;
+    private volatile CompletableFuture<?> election;
+    private volatile boolean leaseErrorLogged;
+    private String leaseNamespaceName;
+    private Counter acquired;
+    private Counter lost;
+    private Counter restarts;
+    private Counter renewalFailures;
+    private Timer renewals;
+
+    void onStart(@Observes StartupEvent event) {
+        Gauge.builder("leader", this, leaderElection -> leaderElection.isLeader() ? 1 : 0)
+                .description("1 if this replica is the leader that runs the cleanup, 0 otherwise")
+                .register(registry);
+        if (!enabled) {
+            logger.info("leader election has been disabled, acting as leader");
+            return;
+        }
+        acquired = Counter.builder("leader_election_acquired").description("Number of times this replica became leader").register(registry);
+        lost = Counter.builder("leader_election_lost").description("Number of times this replica lost the leadership").register(registry);
+        renewalFailures = Counter.builder("leader_lease_renewal_failures").description("Number of failed lease renewals").register(registry);
+        renewals = Timer.builder("leader_lease_renewal").description("Duration of lease renewals").register(registry);
+        restarts = Counter.builder("leader_election_restarts").description("Number of times this replica rejoined the election after leaving it").register(registry);
+
+        leaseNamespaceName = leaseNamespace.orElseGet(kubernetesClient::getNamespace);
+        running = true;
+        elect();
+        logger.info("taking part in leader election for lease " + leaseNamespaceName + "/" + leaseName + " as " + identity);
+    }
+
+    /**
+     * Runs one round of the election. fabric8 completes it as soon as this replica has lost the lease,
+     * so a new round is started unless the application is shutting down.
+     */
+    private void elect() {
+        if (!running) {
+            return;
+        }
+        CompletableFuture<?> round;
+        try {
+            round = kubernetesClient.leaderElector()
+                    .withConfig(new LeaderElectionConfigBuilder()
+                            .withName(leaseName)
+                            .withLeaseDuration(leaseDuration)
+                            .withRenewDeadline(renewDeadline)
+                            .withRetryPeriod(retryPeriod)
+                            .withReleaseOnCancel(true)
+                            .withLock(new RenewalTrackingLeaseLock(leaseNamespaceName, leaseName, identity))
+                            .withLeaderCallbacks(new LeaderCallbacks(this::startedLeading, this::stoppedLeading,
+                                    leader -> logger.info("leader is now " + leader)))
+                            .build())
+                    .build()
+                    .start();
+        } catch (RuntimeException e) {
+            round = CompletableFuture.failedFuture(e);
+        }
+        election = round;
+        round.whenComplete((result, failure) -> {
+            if (!running) {
+                return;
+            }
+            logger.warn(identity + " left the leader election, taking part again in " + retryPeriod, failure);
+            restarts.increment();
+            CompletableFuture.delayedExecutor(retryPeriod.toMillis(), TimeUnit.MILLISECONDS).execute(this::elect);
+        });
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        running = false;
+        CompletableFuture<?> election = this.election;
+        if (election != null) {
+            // releases the lease, so another replica takes over right away
+            election.cancel(true);
+        }
+    }
+
+    /**
+     * @return true if this replica is leader and its lease has been renewed within the renew deadline
+     */
+    public boolean isLeader() {
+        if (!enabled) {
+            return true;
+        }
+        return leading && Instant.now().isBefore(lastRenewal.plus(renewDeadline));
+    }
+
+    private void startedLeading() {
+        lastRenewal = Instant.now();
+        leading = true;
+        acquired.increment();
+        logger.info(identity + " became leader");
+    }
+
+    private void stoppedLeading() {
+        leading = false;
+        lost.increment();
+        logger.info(identity + " is not leader anymore");
+    }
+
+    /**
+     * Records every successful renewal of the lease, which {@link #isLeader()} uses for fencing.
+     */
+    private class RenewalTrackingLeaseLock extends LeaseLock {
+
+        RenewalTrackingLeaseLock(String namespace, String name, String identity) {
+            super(namespace, name, identity);
+        }
+
+        @Override
+        public LeaderElectionRecord get(KubernetesClient client) {
+            try {
+                return super.get(client);
+            } catch (KubernetesClientException e) {
+                logLeaseError("could not read", e);
+                throw e;
+            }
+        }
+
+        @Override
+        public void create(KubernetesClient client, LeaderElectionRecord leaderElectionRecord) {
+            try {
+                super.create(client, leaderElectionRecord);
+                leaseErrorLogged = false;
+            } catch (KubernetesClientException e) {
+                logLeaseError("could not create", e);
+                throw e;
+            }
+        }
+
+        /**
+         * Logs an error once until the lease has been written, the elector retries every retry period.
+         */
+        private void logLeaseError(String what, KubernetesClientException e) {
+            String message = what + " lease " + leaseNamespaceName + "/" + leaseName + ", this replica cannot become leader"
+                    + (e.getCode() == 403 ? ": get, create and update on coordination.k8s.io/leases are missing, see the README" : "");
+            if (leaseErrorLogged) {
+                logger.debug(message, e);
+            } else {
+                leaseErrorLogged = true;
+                logger.error(message, e);
+            }
+        }
+
+        @Override
+        public void update(KubernetesClient client, LeaderElectionRecord leaderElectionRecord) {
+            Instant started = Instant.now();
+            try {
+                super.update(client, leaderElectionRecord);
+            } catch (RuntimeException e) {
+                renewalFailures.increment();
+                throw e;
+            }
+            renewals.record(Duration.between(started, Instant.now()));
+            leaseErrorLogged = false;
+            if (identity.equals(leaderElectionRecord.getHolderIdentity())) {
+                lastRenewal = started;
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package de.svs.scheduling;
+
+import de.svs.Namespace;
+import de.svs.cache.NamespaceActivationCache;
+import io.fabric8.kubernetes.api.model.StatusDetails;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Deletes namespaces in Kubernetes and the database.
+ * <p>
+ * Kubernetes namespaces are deleted concurrently with a configurable parallelism and rate limit for the API server.
+ * Each namespace is retried on its own, so a failing namespace does not hold up the others. Only namespaces
+ * that are gone in Kubernetes are removed from the database afterwards, in bulk.
+ * <p>
+ * Leadership is checked before every call to Kubernetes, so a replica that lost its lease stops deleting.
+ */
+@ApplicationScoped
+public class NamespaceDeleter {
+
+    private static final Logger logger = Logger.getLogger(NamespaceDeleter.class);
+
+    private static final int DATABASE_BATCH_SIZE = 500;
+
+    private final KubernetesClient kubernetesClient;
+    private final NamespaceActivationCache namespaceActivationCache;
+    private final LeaderElection leaderElection;
+    private final Timer kubernetesTimer;
+    private final Timer databaseTimer;
+    private final Counter deleted;
+    private final Counter notFound;
+    private final Counter failed;
+
+    @ConfigProperty(name = "namespace.sync-db-k8s.deletionParallelism", defaultValue = "8")
+    int parallelism;
+
+    @ConfigProperty(name = "namespace.sync-db-k8s.apiRequestsPerSecond", defaultValue = "10")
+    double apiRequestsPerSecond;
+
+    @ConfigProperty(name = "namespace.sync-db-k8s.deletionAttempts", defaultValue = "3")
+    int attempts;
+
+    @ConfigProperty(name = "namespace.sync-db-k8s.deletionRetryDelay", defaultValue = "2s")
+    Duration retryDelay;
+
+    public NamespaceDeleter(KubernetesClient kubernetesClient, NamespaceActivationCache namespaceActivationCache,
+                            LeaderElection leaderElection, MeterRegistry registry) {
+        this.kubernetesClient = kubernetesClient;
+        this.namespaceActivationCache = namespaceActivationCache;
+        this.leaderElection = leaderElection;
+        this.kubernetesTimer = phaseTimer(registry, "kubernetes");
+        this.databaseTimer = phaseTimer(registry, "database");
+        this.deleted = resultCounter(registry, "deleted");
+        this.notFound = resultCounter(registry, "not_found");
+        this.failed = resultCounter(registry, "failed");
+    }
+
+    /**
+     * @return the namespaces that have been removed from Kubernetes (or were not there anymore) and from the database
+     */
+    public List<Namespace> delete(List<Namespace> namespaces) {
+        if (namespaces.isEmpty()) {
+            return List.of();
+        }
+        RateLimiter rateLimiter = new RateLimiter(apiRequestsPerSecond);
+        List<Namespace> goneInKubernetes = Collections.synchronizedList(new ArrayList<>());
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism, Thread.ofVirtual().name("namespace-deletion-", 0).factory())) {
+            for (Namespace namespace : namespaces) {
+                executor.submit(() -> {
+                    if (deleteInKubernetes(namespace, rateLimiter)) {
+                        goneInKubernetes.add(namespace);
+                    }
+                });
+            }
+        }
+        deleteFromDatabase(goneInKubernetes);
+        logger.info("deleted " + goneInKubernetes.size() + " of " + namespaces.size() + " namespaces");
+        return goneInKubernetes;
+    }
+
+    private boolean deleteInKubernetes(Namespace namespace, RateLimiter rateLimiter) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                rateLimiter.acquire();
+                if (!leaderElection.isLeader()) {
+                    logger.warn("not leader anymore, not deleting namespace " + namespace.name);
+                    return false;
+                }
+                List<StatusDetails> details = kubernetesTimer.record(() -> kubernetesClient.namespaces().withName(namespace.name).delete());
+                if (details == null || details.isEmpty()) {
+                    notFound.increment();
+                    logger.info("namespace " + namespace.name + " not found, deleting it only from db");
+                } else {
+                    deleted.increment();
+                    logger.info("deleted namespace in k8s: " + namespace.name + " it's last activation time was: " + namespace.activatedUntil);
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.increment();
+                return false;
+            } catch (RuntimeException e) {
+                if (attempt >= attempts) {
+                    failed.increment();
+                    logger.error("giving up deleting namespace " + namespace.name + " after " + attempt + " attempts", e);
+                    return false;
+                }
+                logger.warn("deleting namespace " + namespace.name + " failed (attempt " + attempt + "), retrying", e);
+                try {
+                    Thread.sleep(retryDelay.multipliedBy(attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    failed.increment();
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void deleteFromDatabase(List<Namespace> namespaces) {
+        for (int from = 0; from < namespaces.size(); from += DATABASE_BATCH_SIZE) {
+            List<Namespace> batch = List.copyOf(namespaces.subList(from, Math.min(from + DATABASE_BATCH_SIZE, namespaces.size())));
+            List<Object> ids = batch.stream().<Object>map(namespace -> namespace.id).toList();
+            databaseTimer.record(() -> Namespace.delete("_id in ?1", ids));
+            batch.forEach(namespaceActivationCache::remove);
+        }
+    }
+
+    private static Timer phaseTimer(MeterRegistry registry, String phase) {
+        return Timer.builder("namespace_cleanup_phase")
+                .description("Duration of the phases of deleting inactive namespaces")
+                .tag("phase", phase)
+                .register(registry);
+    }
+
+    private static Counter resultCounter(MeterRegistry registry, String result) {
+        return Counter.builder("namespace_cleanup_deletions")
+                .description("Number of namespaces processed by the cleanup, by result")
+                .tag("result", result)
+                .register(registry);
+    }
+}
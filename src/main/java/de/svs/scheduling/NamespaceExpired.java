@@ -0,0 +1,9 @@
+package de.svs.scheduling;
+
+import java.time.Instant;
+
+/**
+ * Fired by the {@link NamespaceExpiryScheduler} at the moment the activatedUntil of a namespace has passed.
+ */
+public record NamespaceExpired(String name, Instant activatedUntil) {
+}
@@ -0,0 +1,207 @@
+package de.svs.scheduling;
+
+import de.svs.Namespace;
+import de.svs.cache.NamespaceActivationChanged;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acts at the moment a namespace expires instead of waiting for the next run of {@link DeleteDeactivatedNamespaces}.
+ * <p>
+ * Every namespace has at most one pending deactivation (at activatedUntil) and one pending deletion
+ * (afterDaysOfInactivity later) in a {@link DelayQueue}. The queue is fed by the {@link NamespaceActivationChanged}
+ * events of the activation cache, so it is rebuilt from the database at startup and follows every extension.
+ * An extension does not touch the queue: when an entry becomes due, it is checked against the current activatedUntil
+ * and put back with the new due time if the namespace has been extended in the meantime.
+ * The entries of a removed namespace are taken out of the queue right away.
+ * <p>
+ * When a deactivation is due, {@link NamespaceExpired} is fired. Deleting namespaces when they are due is opt-in,
+ * the scheduled cleanup stays in place as safety net.
+ */
+@ApplicationScoped
+public class NamespaceExpiryScheduler {
+
+    private static final Logger logger = Logger.getLogger(NamespaceExpiryScheduler.class);
+
+    enum Kind {DEACTIVATION, DELETION}
+
+    private record Key(String name, Kind kind) {
+    }
+
+    private record Expiry(Key key, Instant due) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(Instant.now(), due));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return due.compareTo(((Expiry) other).due);
+        }
+    }
+
+    private final DelayQueue<Expiry> queue = new DelayQueue<>();
+    private final ConcurrentMap<Key, Instant> scheduled = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Instant> activatedUntilByName = new ConcurrentHashMap<>();
+
+    @Inject
+    Event<NamespaceExpired> namespaceExpired;
+
+    @Inject
+    NamespaceDeleter namespaceDeleter;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    LeaderElection leaderElection;
+
+    @ConfigProperty(name = "namespace.sync-db-k8s.afterDaysOfInactivity", defaultValue = "30")
+    int afterDaysOfInactivity;
+
+    @ConfigProperty(name = "namespace.sync-db-k8s.namespacesNotToRemove", defaultValue = "main")
+    List<String> namespacesNotToDelete;
+
+    @ConfigProperty(name = "namespace.expiry.deleteWhenDue", defaultValue = "false")
+    boolean deleteWhenDue;
+
+    private Thread thread;
+
+    void onStart(@Observes StartupEvent event) {
+        Gauge.builder("namespace_expiry_queue_size", queue, DelayQueue::size)
+                .description("Number of pending deactivations and deletions")
+                .register(registry);
+        thread = Thread.ofPlatform().name("namespace-expiry").daemon().start(this::run);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    void onActivationChanged(@Observes NamespaceActivationChanged event) {
+        if (event.removed()) {
+            activatedUntilByName.remove(event.name());
+            unschedule(event.name());
+            return;
+        }
+        activatedUntilByName.put(event.name(), event.activatedUntil());
+        Instant now = Instant.now();
+        // namespaces that expired before they became known, e.g. at startup, have been deactivated already
+        if (event.activatedUntil().isAfter(now)) {
+            schedule(new Key(event.name(), Kind.DEACTIVATION), event.activatedUntil());
+        }
+        schedule(new Key(event.name(), Kind.DELETION), deletionDue(event.activatedUntil()));
+    }
+
+    /**
+     * @return the pending due time of the given kind for the namespace, null if there is none
+     */
+    Instant scheduledAt(String name, Kind kind) {
+        return scheduled.get(new Key(name, kind));
+    }
+
+    /**
+     * @return number of queue entries of the namespace, including superseded ones
+     */
+    long queued(String name) {
+        return queue.stream().filter(expiry -> expiry.key().name().equals(name)).count();
+    }
+
+    private void unschedule(String name) {
+        for (Kind kind : Kind.values()) {
+            scheduled.remove(new Key(name, kind));
+        }
+        // superseded entries are in the queue as well, not only the ones in scheduled
+        queue.removeIf(expiry -> expiry.key().name().equals(name));
+    }
+
+    private void schedule(Key key, Instant due) {
+        boolean[] added = {false};
+        scheduled.compute(key, (k, current) -> {
+            if (current != null && !due.isBefore(current)) {
+                return current;
+            }
+            added[0] = true;
+            return due;
+        });
+        if (added[0]) {
+            queue.put(new Expiry(key, due));
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                process(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                logger.error("could not process expired namespace", e);
+            }
+        }
+    }
+
+    private void process(Expiry expiry) {
+        Key key = expiry.key();
+        if (!expiry.due().equals(scheduled.get(key))) {
+            // superseded by an earlier entry for the same namespace
+            return;
+        }
+        Instant activatedUntil = activatedUntilByName.get(key.name());
+        if (activatedUntil == null) {
+            scheduled.remove(key, expiry.due());
+            return;
+        }
+        Instant due = key.kind() == Kind.DEACTIVATION ? activatedUntil : deletionDue(activatedUntil);
+        if (due.isAfter(Instant.now())) {
+            // extended in the meantime
+            scheduled.put(key, due);
+            queue.put(new Expiry(key, due));
+            return;
+        }
+        scheduled.remove(key, expiry.due());
+        switch (key.kind()) {
+            case DEACTIVATION -> {
+                logger.info("namespace " + key.name() + " expired at " + activatedUntil);
+                namespaceExpired.fire(new NamespaceExpired(key.name(), activatedUntil));
+            }
+            case DELETION -> delete(key.name());
+        }
+    }
+
+    private void delete(String name) {
+        if (!deleteWhenDue || namespacesNotToDelete.contains(name) || !leaderElection.isLeader()) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(afterDaysOfInactivity, ChronoUnit.DAYS);
+        // the database is the source of truth, another replica may have extended the namespace
+        Namespace.findByName(name)
+                .filter(namespace -> namespace.activatedUntil.isBefore(cutoff))
+                .ifPresent(namespace -> namespaceDeleter.delete(List.of(namespace)));
+    }
+
+    private Instant deletionDue(Instant activatedUntil) {
+        return activatedUntil.plus(afterDaysOfInactivity, ChronoUnit.DAYS);
+    }
+}
@@ -0,0 +1,196 @@
+package de.svs.scheduling;
+
+import de.svs.Namespace;
+import de.svs.ResumeToken;
+import de.svs.cache.NamespaceActivationCache;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.WatcherException;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Watches the namespaces of the cluster, so that namespaces deleted in Kubernetes are removed from the database
+ * right away instead of with the next run of {@link DeleteDeactivatedNamespaces}.
+ * Optionally, namespaces created in Kubernetes are registered in the database.
+ * <p>
+ * The resourceVersion of the last seen event is persisted as {@link ResumeToken}, so after a restart the watch
+ * continues where it stopped instead of listing all namespaces again. If the resourceVersion is too old (410 Gone),
+ * the watch starts over from the current state and the periodic sync catches up with the events that were missed.
+ */
+@ApplicationScoped
+public class NamespaceWatcher implements Watcher<io.fabric8.kubernetes.api.model.Namespace> {
+
+    private static final Logger logger = Logger.getLogger(NamespaceWatcher.class);
+
+    static final String RESUME_TOKEN_ID = "namespaces-watch";
+
+    @Inject
+    KubernetesClient kubernetesClient;
+
+    @Inject
+    NamespaceActivationCache namespaceActivationCache;
+
+    @ConfigProperty(name = "namespace.watch.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "namespace.watch.registerCreatedNamespaces", defaultValue = "false")
+    boolean registerCreatedNamespaces;
+
+    @ConfigProperty(name = "namespace.watch.retryDelay", defaultValue = "5s")
+    Duration retryDelay;
+
+    @ConfigProperty(name = "namespace.watch.persistInterval", defaultValue = "10s")
+    Duration persistInterval;
+
+    @ConfigProperty(name = "namespace.sync-db-k8s.namespacesNotToRemove", defaultValue = "main")
+    List<String> namespacesNotToDelete;
+
+    private volatile boolean running;
+    private volatile Watch watch;
+    private volatile String resourceVersion;
+    private Instant lastPersisted = Instant.EPOCH;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            logger.info("namespace watch has been disabled");
+            return;
+        }
+        startWatching();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        stopWatching();
+    }
+
+    void startWatching() {
+        running = true;
+        resourceVersion = ResumeToken.load(RESUME_TOKEN_ID).orElse(null);
+        start();
+    }
+
+    void stopWatching() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Watch current = watch;
+        if (current != null) {
+            current.close();
+        }
+        persist(true);
+    }
+
+    private synchronized void start() {
+        if (!running) {
+            return;
+        }
+        try {
+            if (resourceVersion == null) {
+                // only the current resourceVersion is needed, the periodic sync takes care of the existing namespaces
+                resourceVersion = kubernetesClient.namespaces()
+                        .list(new ListOptionsBuilder().withLimit(1L).build())
+                        .getMetadata()
+                        .getResourceVersion();
+            }
+            watch = kubernetesClient.namespaces().watch(new ListOptionsBuilder()
+                    .withResourceVersion(resourceVersion)
+                    .withAllowWatchBookmarks(true)
+                    .build(), this);
+            logger.info("watching namespaces from resourceVersion " + resourceVersion);
+        } catch (RuntimeException e) {
+            logger.warn("could not watch namespaces, retrying in " + retryDelay, e);
+            restartLater();
+        }
+    }
+
+    @Override
+    public void eventReceived(Action action, io.fabric8.kubernetes.api.model.Namespace namespace) {
+        String name = namespace.getMetadata().getName();
+        switch (action) {
+            case DELETED -> onDeleted(name);
+            case ADDED -> onAdded(name);
+            default -> logger.debug("ignoring namespace event " + action + " for " + name);
+        }
+        resourceVersion = namespace.getMetadata().getResourceVersion();
+        persist(false);
+    }
+
+    @Override
+    public void onClose(WatcherException cause) {
+        if (cause.isHttpGone()) {
+            logger.warn("resourceVersion " + resourceVersion + " of namespace watch is gone, starting over");
+            resourceVersion = null;
+            ResumeToken.clear(RESUME_TOKEN_ID);
+        } else {
+            logger.warn("namespace watch closed, restarting in " + retryDelay, cause);
+        }
+        restartLater();
+    }
+
+    @Override
+    public void onClose() {
+        logger.info("namespace watch closed");
+    }
+
+    void onDeleted(String name) {
+        if (namespacesNotToDelete.contains(name)) {
+            logger.warn("protected namespace " + name + " has been deleted in k8s, keeping it in db");
+            return;
+        }
+        List<Namespace> namespaces = Namespace.list("name", name);
+        if (namespaces.isEmpty()) {
+            return;
+        }
+        Namespace.delete("name", name);
+        namespaces.forEach(namespaceActivationCache::remove);
+        logger.info("namespace " + name + " has been deleted in k8s, deleted it in db");
+    }
+
+    void onAdded(String name) {
+        if (!registerCreatedNamespaces) {
+            return;
+        }
+        Namespace.createIfNotExists(name, Instant.now()).ifPresent(created -> {
+            namespaceActivationCache.put(created);
+            logger.info("namespace " + name + " has been created in k8s, registered it in db");
+        });
+    }
+
+    private void restartLater() {
+        Thread.ofVirtual().name("namespace-watch-restart").start(() -> {
+            try {
+                Thread.sleep(retryDelay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            start();
+        });
+    }
+
+    private void persist(boolean force) {
+        String current = resourceVersion;
+        Instant now = Instant.now();
+        if (current == null || (!force && now.isBefore(lastPersisted.plus(persistInterval)))) {
+            return;
+        }
+        try {
+            ResumeToken.save(RESUME_TOKEN_ID, current);
+            lastPersisted = now;
+        } catch (RuntimeException e) {
+            logger.warn("could not persist resourceVersion of namespace watch", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package de.svs.scheduling;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces out calls evenly, so that at most the given number of permits is handed out per second.
+ */
+class RateLimiter {
+
+    private final long intervalInNanos;
+    private long nextFreeSlot = System.nanoTime();
+
+    RateLimiter(double permitsPerSecond) {
+        this.intervalInNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    void acquire() throws InterruptedException {
+        long waitInNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextFreeSlot);
+            nextFreeSlot = slot + intervalInNanos;
+            waitInNanos = slot - now;
+        }
+        if (waitInNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitInNanos);
+        }
+    }
+}
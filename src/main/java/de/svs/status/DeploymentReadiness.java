@@ -0,0 +1,140 @@
+package de.svs.status;
+
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.base.ResourceDefinitionContext;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Reports the readiness of a namespace based on its deployments, watched with an informer instead of polling over HTTP.
+ * <p>
+ * A message is emitted whenever the number of ready deployments changes, e.g. "3/12 deployments ready".
+ * The namespace is available once it has deployments and all of them have their desired replicas ready.
+ * A deployment scaled to zero counts as ready, unless it is the target of a KEDA ScaledObject and thereby only
+ * waiting to be woken up.
+ */
+@ApplicationScoped
+public class DeploymentReadiness {
+
+    private static final Logger logger = Logger.getLogger(DeploymentReadiness.class);
+
+    static final ResourceDefinitionContext SCALED_OBJECTS = new ResourceDefinitionContext.Builder()
+            .withGroup("keda.sh")
+            .withVersion("v1alpha1")
+            .withKind("ScaledObject")
+            .withPlural("scaledobjects")
+            .withNamespaced(true)
+            .build();
+
+    @Inject
+    KubernetesClient kubernetesClient;
+
+    @ConfigProperty(name = "baseDomain")
+    String baseDomain;
+
+    public Multi<StatusDto> watch(String namespace) {
+        String baseUri = "https://" + namespace + baseDomain;
+        return Multi.createFrom().emitter(emitter -> {
+            AtomicReference<String> lastMessage = new AtomicReference<>();
+            Set<String> scaledByKeda = scaledByKeda(namespace);
+            SharedIndexInformer<Deployment> informer = kubernetesClient.apps()
+                    .deployments()
+                    .inNamespace(namespace)
+                    .runnableInformer(0);
+            informer.addEventHandler(new ResourceEventHandler<>() {
+                @Override
+                public void onAdd(Deployment deployment) {
+                    publish(informer.getStore().list(), scaledByKeda, namespace, baseUri, lastMessage, emitter);
+                }
+
+                @Override
+                public void onUpdate(Deployment oldDeployment, Deployment newDeployment) {
+                    publish(informer.getStore().list(), scaledByKeda, namespace, baseUri, lastMessage, emitter);
+                }
+
+                @Override
+                public void onDelete(Deployment deployment, boolean deletedFinalStateUnknown) {
+                    publish(informer.getStore().list(), scaledByKeda, namespace, baseUri, lastMessage, emitter);
+                }
+            });
+            emitter.onTermination(informer::close);
+            logger.debug("watching deployments of " + namespace);
+            informer.start().whenComplete((synced, failure) -> {
+                if (failure != null) {
+                    emitter.fail(failure);
+                } else {
+                    publish(informer.getStore().list(), scaledByKeda, namespace, baseUri, lastMessage, emitter);
+                }
+            });
+        });
+    }
+
+    /**
+     * @return the names of the deployments KEDA scales in the namespace, empty if KEDA is not installed
+     */
+    private Set<String> scaledByKeda(String namespace) {
+        try {
+            return kubernetesClient.genericKubernetesResources(SCALED_OBJECTS)
+                    .inNamespace(namespace)
+                    .list()
+                    .getItems()
+                    .stream()
+                    .map(scaledObject -> scaledObject.<Map<String, Object>>get("spec", "scaleTargetRef"))
+                    .filter(Objects::nonNull)
+                    .filter(target -> "Deployment".equals(target.getOrDefault("kind", "Deployment")))
+                    .map(target -> (String) target.get("name"))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+        } catch (KubernetesClientException e) {
+            logger.debug("could not list ScaledObjects of " + namespace + ", assuming none", e);
+            return Set.of();
+        }
+    }
+
+    private static void publish(List<Deployment> deployments, Set<String> scaledByKeda, String namespace, String baseUri,
+                                AtomicReference<String> lastMessage, MultiEmitter<? super StatusDto> emitter) {
+        // events of the informer and its initial sync may race
+        synchronized (lastMessage) {
+            if (emitter.isCancelled()) {
+                return;
+            }
+            long ready = deployments.stream()
+                    .filter(deployment -> isReady(deployment, scaledByKeda.contains(deployment.getMetadata().getName())))
+                    .count();
+            if (!deployments.isEmpty() && ready == deployments.size()) {
+                emitter.emit(new StatusDto(namespace, "available!", baseUri, true, true));
+                emitter.complete();
+                return;
+            }
+            String message = ready + "/" + deployments.size() + " deployments ready";
+            if (!Objects.equals(lastMessage.getAndSet(message), message)) {
+                emitter.emit(new StatusDto(namespace, message, baseUri, true, false));
+            }
+        }
+    }
+
+    static boolean isReady(Deployment deployment, boolean scaledByKeda) {
+        int desired = Objects.requireNonNullElse(deployment.getSpec().getReplicas(), 1);
+        if (desired == 0) {
+            // deployments scaled to zero by KEDA have not been woken up yet, others are meant to stay down
+            return !scaledByKeda;
+        }
+        int ready = deployment.getStatus() == null ? 0 : Objects.requireNonNullElse(deployment.getStatus().getReadyReplicas(), 0);
+        return ready >= desired;
+    }
+}
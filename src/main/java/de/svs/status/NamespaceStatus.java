@@ -3,57 +3,157 @@ package de.svs.status;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.net.SocketAddress;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.time.Duration;
+import java.util.Optional;
 
+/**
+ * Checks the /version endpoint of a namespace.
+ * <p>
+ * All probes share one long-lived HTTP client, so connections (and their TLS sessions) to a namespace
+ * are kept alive and reused between ticks instead of being set up for every single request.
+ */
+@ApplicationScoped
 public class NamespaceStatus {
 
     private static final Logger logger = Logger.getLogger(NamespaceStatus.class);
-    private final ObjectMapper objectMapper;
-    private final String baseDomain;
 
-    public NamespaceStatus(ObjectMapper objectMapper, String baseDomain) {
-        this.objectMapper = objectMapper;
-        this.baseDomain = baseDomain;
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    Vertx vertx;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "baseDomain")
+    String baseDomain;
+
+    @ConfigProperty(name = "status.timeout", defaultValue = "5s")
+    Duration timeout;
+
+    @ConfigProperty(name = "status.connectTimeout", defaultValue = "3s")
+    Duration connectTimeout;
+
+    @ConfigProperty(name = "status.keepAliveTimeout", defaultValue = "60s")
+    Duration keepAliveTimeout;
+
+    @ConfigProperty(name = "status.http2", defaultValue = "true")
+    boolean http2;
+
+    @ConfigProperty(name = "status.maxConnectionsPerHost", defaultValue = "2")
+    int maxConnectionsPerHost;
+
+    @ConfigProperty(name = "status.trustAll", defaultValue = "false")
+    boolean trustAll;
+
+    /**
+     * host:port to connect to instead of resolving the namespace host, e.g. the ingress controller.
+     */
+    @ConfigProperty(name = "status.server")
+    Optional<String> server;
+
+    private HttpClient httpClient;
+    private Counter handshakes;
+    private Timer probeTimer;
+
+    @PostConstruct
+    void init() {
+        handshakes = Counter.builder("namespace_status_tls_handshakes")
+                .description("Number of connections (and thereby TLS handshakes) opened to namespaces by status probes")
+                .register(registry);
+        probeTimer = Timer.builder("namespace_status_probe")
+                .description("Latency of status probes against the /version endpoint of namespaces")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        HttpClientOptions options = new HttpClientOptions()
+                .setSsl(true)
+                .setUseAlpn(http2)
+                .setProtocolVersion(http2 ? HttpVersion.HTTP_2 : HttpVersion.HTTP_1_1)
+                .setKeepAlive(true)
+                .setKeepAliveTimeout((int) keepAliveTimeout.toSeconds())
+                .setHttp2KeepAliveTimeout((int) keepAliveTimeout.toSeconds())
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setTrustAll(trustAll)
+                .setVerifyHost(!trustAll);
+        PoolOptions poolOptions = new PoolOptions()
+                .setHttp1MaxSize(maxConnectionsPerHost)
+                .setHttp2MaxSize(1);
+        httpClient = vertx.httpClientBuilder()
+                .with(options)
+                .with(poolOptions)
+                .withConnectHandler(connection -> handshakes.increment())
+                .build();
     }
 
-    public StatusDto get(String namespace) {
-        String versionAggregatorJson = "";
+    @PreDestroy
+    void close() {
+        httpClient.close();
+    }
+
+    public Uni<StatusDto> get(String namespace) {
         String baseUri = "https://" + namespace + this.baseDomain;
-        String uri = baseUri + "/version";
-        logger.debug("doing something " + namespace);
-        HttpRequest request = HttpRequest.newBuilder(URI.create(uri)).GET().build();
-        try (HttpClient httpClient = HttpClient.newHttpClient()) {
-            HttpResponse<String> response = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).get(5, TimeUnit.SECONDS);
-            logger.debug("got response for " + namespace);
-
-            if (response.statusCode() >= 200 && 300 >= response.statusCode()) {
-                versionAggregatorJson = response.body();
+        RequestOptions request = new RequestOptions()
+                .setMethod(HttpMethod.GET)
+                .setAbsoluteURI(baseUri + "/version")
+                .setIdleTimeout(timeout.toMillis());
+        server.map(NamespaceStatus::parseServer).ifPresent(request::setServer);
+
+        return Uni.createFrom().deferred(() -> {
+            logger.debug("doing something " + namespace);
+            Timer.Sample sample = Timer.start(registry);
+            return Uni.createFrom().completionStage(() -> httpClient.request(request)
+                            .compose(HttpClientRequest::send)
+                            .compose(response -> response.body()
+                                    .map(body -> toStatusDto(namespace, baseUri, response.statusCode(), body.toString())))
+                            .toCompletionStage())
+                    .ifNoItem().after(timeout).fail()
+                    .onTermination().invoke(() -> sample.stop(probeTimer));
+        });
+    }
+
+    private StatusDto toStatusDto(String namespace, String baseUri, int statusCode, String versionAggregatorJson) {
+        logger.debug("got response for " + namespace);
+        if (statusCode >= 200 && 300 >= statusCode) {
+            try {
                 boolean available = !objectMapper.readTree(versionAggregatorJson).get("services-unavailable").asBoolean();
                 if (available) {
-                    return new StatusDto("available!", baseUri, true, true);
+                    return new StatusDto(namespace, "available!", baseUri, true, true);
                 } else {
-                    return new StatusDto("/version is available ...", baseUri, true, false);
+                    return new StatusDto(namespace, "/version is available ...", baseUri, true, false);
                 }
-            } else {
-                return new StatusDto("/version returned 404 ...", baseUri, true, false);
+            } catch (JsonProcessingException e) {
+                logger.error(e);
+                return new StatusDto(namespace, "invalid json? " + versionAggregatorJson, baseUri, false, true);
             }
-
-        } catch (JsonProcessingException e) {
-            logger.error(e);
-            return new StatusDto("invalid json? " + versionAggregatorJson, baseUri, false, true);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return null;
-        } catch (ExecutionException | TimeoutException e) {
-            throw new RuntimeException(e);
+        } else {
+            return new StatusDto(namespace, "/version returned 404 ...", baseUri, true, false);
         }
     }
+
+    private static SocketAddress parseServer(String server) {
+        int separator = server.lastIndexOf(':');
+        return SocketAddress.inetSocketAddress(Integer.parseInt(server.substring(separator + 1)), server.substring(0, separator));
+    }
 }
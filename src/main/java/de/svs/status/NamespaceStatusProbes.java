@@ -0,0 +1,167 @@
+package de.svs.status;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Polls the status of a namespace once, no matter how many clients are waiting for it.
+ * <p>
+ * The polling loop of a namespace starts with its first subscriber and is shared with every later one.
+ * It stops when the final message has been sent or the last subscriber has left.
+ * Depending on the {@link ReadinessMode} the namespace is either polled over HTTP, with delays following the
+ * configured {@link PollingPolicy}, or its deployments are watched.
+ * <p>
+ * Joining, leaving and retiring a shared probe all happen atomically on the map of probes. A subscriber either
+ * joins a probe that will still deliver the final message to it, or starts a new one.
+ */
+@ApplicationScoped
+public class NamespaceStatusProbes {
+
+    @Inject
+    NamespaceStatus namespaceStatus;
+
+    @Inject
+    DeploymentReadiness deploymentReadiness;
+
+    @ConfigProperty(name = "waiter.readinessMode", defaultValue = "http")
+    ReadinessMode readinessMode;
+
+    @ConfigProperty(name = "waiter.initialDelayInMillis", defaultValue = "250")
+    long initialDelayInMillis;
+
+    @ConfigProperty(name = "waiter.maxDelayInSeconds", defaultValue = "10")
+    long maxDelayInSeconds;
+
+    @ConfigProperty(name = "waiter.backoffMultiplier", defaultValue = "2")
+    double backoffMultiplier;
+
+    @ConfigProperty(name = "waiter.jitter", defaultValue = "0.2")
+    double jitter;
+
+    private PollingPolicy pollingPolicy;
+
+    private static final class SharedProbe {
+        final Set<MultiEmitter<? super StatusDto>> subscribers = ConcurrentHashMap.newKeySet();
+        volatile Cancellable upstream;
+        volatile boolean cancelled;
+
+        void cancel() {
+            cancelled = true;
+            Cancellable current = upstream;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+
+    private final ConcurrentMap<String, SharedProbe> probes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        pollingPolicy = new PollingPolicy(Duration.ofMillis(initialDelayInMillis), Duration.ofSeconds(maxDelayInSeconds), backoffMultiplier, jitter);
+    }
+
+    public Multi<StatusDto> probe(String namespace) {
+        return Multi.createFrom().emitter(emitter -> join(namespace, emitter));
+    }
+
+    private void join(String namespace, MultiEmitter<? super StatusDto> emitter) {
+        AtomicBoolean created = new AtomicBoolean();
+        SharedProbe probe = probes.compute(namespace, (name, existing) -> {
+            SharedProbe joined = existing;
+            if (joined == null) {
+                joined = new SharedProbe();
+                created.set(true);
+            }
+            joined.subscribers.add(emitter);
+            return joined;
+        });
+        emitter.onTermination(() -> leave(namespace, probe, emitter));
+        if (created.get()) {
+            start(namespace, probe);
+        }
+    }
+
+    private void leave(String namespace, SharedProbe probe, MultiEmitter<? super StatusDto> emitter) {
+        AtomicBoolean lastSubscriberLeft = new AtomicBoolean();
+        probes.compute(namespace, (name, current) -> {
+            probe.subscribers.remove(emitter);
+            if (current == probe && probe.subscribers.isEmpty()) {
+                lastSubscriberLeft.set(true);
+                return null;
+            }
+            return current;
+        });
+        if (lastSubscriberLeft.get()) {
+            probe.cancel();
+        }
+    }
+
+    private void start(String namespace, SharedProbe probe) {
+        Multi<StatusDto> source = switch (readinessMode) {
+            case HTTP -> poll(namespace);
+            case KUBERNETES -> deploymentReadiness.watch(namespace);
+        };
+        probe.upstream = source.subscribe().with(
+                statusDto -> {
+                    if (statusDto.finalMessage()) {
+                        // nobody joins anymore, so every subscriber left in the set gets the final message
+                        probes.remove(namespace, probe);
+                        probe.subscribers.forEach(subscriber -> subscriber.emit(statusDto));
+                        probe.subscribers.forEach(MultiEmitter::complete);
+                        probe.cancel();
+                    } else {
+                        probe.subscribers.forEach(subscriber -> subscriber.emit(statusDto));
+                    }
+                },
+                failure -> {
+                    probes.remove(namespace, probe);
+                    probe.subscribers.forEach(subscriber -> subscriber.fail(failure));
+                },
+                () -> {
+                    probes.remove(namespace, probe);
+                    probe.subscribers.forEach(MultiEmitter::complete);
+                });
+        if (probe.cancelled) {
+            probe.upstream.cancel();
+        }
+    }
+
+    /**
+     * @return the number of namespaces currently being probed
+     */
+    int activeProbes() {
+        return probes.size();
+    }
+
+    private Multi<StatusDto> poll(String namespace) {
+        AtomicBoolean finalMessageReceived = new AtomicBoolean();
+        AtomicInteger attempt = new AtomicInteger();
+        return Multi.createBy()
+                .repeating()
+                .uni(() -> delayed(pollingPolicy.delayBefore(attempt.getAndIncrement()), namespace))
+                .until(statusDto -> finalMessageReceived.getAndSet(statusDto.finalMessage()));
+    }
+
+    private Uni<StatusDto> delayed(Duration delay, String namespace) {
+        if (delay.isZero()) {
+            return namespaceStatus.get(namespace);
+        }
+        return Uni.createFrom().voidItem()
+                .onItem().delayIt().by(delay)
+                .chain(() -> namespaceStatus.get(namespace));
+    }
+}
@@ -0,0 +1,31 @@
+package de.svs.status;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff between two status probes of a namespace.
+ * <p>
+ * The first probe happens immediately and the following ones quickly, so namespaces that are already up are
+ * reported within a few hundred milliseconds. The delay then grows up to a ceiling, which keeps the probe load low
+ * during long cold starts. Jitter only ever shortens a delay, so the ceiling is never exceeded.
+ *
+ * @param initialDelay delay before the second probe
+ * @param maxDelay     ceiling for the delay between two probes
+ * @param multiplier   factor the delay grows by after each probe
+ * @param jitter       fraction (0 to 1) of a delay that is randomly cut off
+ */
+public record PollingPolicy(Duration initialDelay, Duration maxDelay, double multiplier, double jitter) {
+
+    /**
+     * @param attempt number of the probe, starting with 0
+     */
+    public Duration delayBefore(int attempt) {
+        if (attempt == 0) {
+            return Duration.ZERO;
+        }
+        double delayInMillis = Math.min(initialDelay.toMillis() * Math.pow(multiplier, attempt - 1), maxDelay.toMillis());
+        double jittered = delayInMillis * (1 - jitter * ThreadLocalRandom.current().nextDouble());
+        return Duration.ofMillis(Math.round(jittered));
+    }
+}
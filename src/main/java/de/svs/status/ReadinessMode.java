@@ -0,0 +1,15 @@
+package de.svs.status;
+
+/**
+ * How the activator finds out that a namespace is ready.
+ */
+public enum ReadinessMode {
+    /**
+     * poll the /version endpoint of the namespace through its ingress
+     */
+    HTTP,
+    /**
+     * watch the deployments of the namespace with an informer
+     */
+    KUBERNETES
+}
@@ -5,8 +5,8 @@ import io.quarkus.runtime.annotations.RegisterForReflection;
 import java.time.LocalDateTime;
 
 @RegisterForReflection
-public record StatusDto(String message, String namespaceBaseUri, java.time.LocalDateTime date, boolean success, boolean finalMessage) {
-    public StatusDto(String message, String namespaceBaseUri, boolean success, boolean finalMessage) {
-        this(message, namespaceBaseUri, LocalDateTime.now(), success, finalMessage);
+public record StatusDto(String namespace, String message, String namespaceBaseUri, java.time.LocalDateTime date, boolean success, boolean finalMessage) {
+    public StatusDto(String namespace, String message, String namespaceBaseUri, boolean success, boolean finalMessage) {
+        this(namespace, message, namespaceBaseUri, LocalDateTime.now(), success, finalMessage);
     }
 }
@@ -14,15 +14,19 @@ import org.mockito.Mockito;
 
 import jakarta.ws.rs.NotFoundException;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static io.restassured.RestAssured.given;
 import static java.time.temporal.ChronoUnit.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.within;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.Mockito.when;
 
 @QuarkusTest
@@ -37,6 +41,7 @@ class NamespaceControllerTest {
         NamespaceActivationWaiter mock = Mockito.mock(NamespaceActivationWaiter.class);
         String namespace = any(String.class);
         when(mock.waitForNamespaceToBecomeAvailable(namespace, anyInt())).thenReturn(Multi.createFrom().empty());
+        when(mock.waitForNamespacesToBecomeAvailable(anyMap())).thenReturn(Multi.createFrom().empty());
         QuarkusMock.installMockForType(mock, NamespaceActivationWaiter.class);
     }
 
@@ -79,6 +84,18 @@ class NamespaceControllerTest {
         subscriber.assertCompleted().awaitItems(0).assertItems();
     }
 
+    @Test
+    void createIfNotExistsAndWaitOnlyCreatesOnce() {
+        String namespaceName = UUID.randomUUID().toString();
+
+        RestMulti<OutboundSseEvent> first = namespaceController.createIfNotExistsAndWait(namespaceDto(namespaceName));
+        RestMulti<OutboundSseEvent> second = namespaceController.createIfNotExistsAndWait(namespaceDto(namespaceName));
+
+        assertThat(first.getStatus()).isEqualTo(201);
+        assertThat(second.getStatus()).isEqualTo(304);
+        assertThat(Namespace.<Namespace>list("name", namespaceName)).hasSize(1);
+    }
+
     @Test
     void extendAndWaitNamespaceNotFound() {
         String namespaceName = UUID.randomUUID().toString();
@@ -134,6 +151,30 @@ class NamespaceControllerTest {
         subscriber.assertCompleted().awaitItems(0).assertItems();
     }
 
+    @Test
+    void batchExtendAndWait() {
+        String existingName = UUID.randomUUID().toString();
+        Namespace existing = new Namespace();
+        existing.name = existingName;
+        existing.activatedUntil = Instant.EPOCH;
+        existing.persist();
+        String laterName = UUID.randomUUID().toString();
+        Instant later = Instant.now().plus(666, DAYS);
+        Namespace.create(laterName, later).persist();
+        String newName = UUID.randomUUID().toString();
+
+        Multi<OutboundSseEvent> multi = namespaceController.batchExtendAndWait(
+                List.of(namespaceDto(existingName), namespaceDto(laterName), namespaceDto(newName)));
+        AssertSubscriber<OutboundSseEvent> subscriber = multi.subscribe().withSubscriber(AssertSubscriber.create(0));
+
+        assertThat(Namespace.findByName(existingName).orElseThrow().activatedUntil).isCloseTo(Instant.now().plus(2, DAYS), within(1, SECONDS));
+        assertThat(Namespace.findByName(laterName).orElseThrow().activatedUntil).isCloseTo(later, within(1, MILLIS));
+        assertThat(Namespace.findByName(newName).orElseThrow().activatedUntil).isCloseTo(Instant.now().plus(2, DAYS), within(1, SECONDS));
+        assertThat(namespaceController.isNamespaceActive(existingName).await().indefinitely().active()).isEqualTo(1);
+        assertThat(namespaceController.isNamespaceActive(newName).await().indefinitely().active()).isEqualTo(1);
+        subscriber.assertCompleted().awaitItems(0).assertItems();
+    }
+
     @Test
     void isNamespaceActiveReturnsActiveForFutureActivatedUntil() {
         String namespaceName = UUID.randomUUID().toString();
@@ -143,7 +184,7 @@ class NamespaceControllerTest {
         namespace.activatedUntil = activatedUntil;
         namespace.persist();
 
-        NamespaceController.NamespaceActiveResponse response = namespaceController.isNamespaceActive(namespaceName);
+        NamespaceController.NamespaceActiveResponse response = namespaceController.isNamespaceActive(namespaceName).await().indefinitely();
 
         assertThat(response.name()).isEqualTo(namespaceName);
         assertThat(response.activatedUntil()).isCloseTo(activatedUntil, within(1, MILLIS));
@@ -160,7 +201,7 @@ class NamespaceControllerTest {
         namespace.activatedUntil = activatedUntil;
         namespace.persist();
 
-        NamespaceController.NamespaceActiveResponse response = namespaceController.isNamespaceActive(namespaceName);
+        NamespaceController.NamespaceActiveResponse response = namespaceController.isNamespaceActive(namespaceName).await().indefinitely();
 
         assertThat(response.name()).isEqualTo(namespaceName);
         assertThat(response.activatedUntil()).isCloseTo(activatedUntil, within(1, MILLIS));
@@ -168,11 +209,59 @@ class NamespaceControllerTest {
         assertThat(response.inactive()).isEqualTo(1);
     }
 
+    @Test
+    void isNamespaceActiveReflectsExtendAndWait() {
+        String namespaceName = UUID.randomUUID().toString();
+        Namespace namespace = new Namespace();
+        namespace.name = namespaceName;
+        namespace.activatedUntil = Instant.EPOCH;
+        namespace.persist();
+
+        assertThat(namespaceController.isNamespaceActive(namespaceName).await().indefinitely().active()).isEqualTo(0);
+
+        namespaceController.extendAndWait(namespaceDto(namespaceName));
+
+        NamespaceController.NamespaceActiveResponse response = namespaceController.isNamespaceActive(namespaceName).await().indefinitely();
+        assertThat(response.activatedUntil()).isCloseTo(Instant.now().plus(2, DAYS), within(1, SECONDS));
+        assertThat(response.active()).isEqualTo(1);
+    }
+
+    @Test
+    void activeNamespacesReturnsAllNamespacesWithPrefixAndSupportsETag() {
+        String prefix = UUID.randomUUID().toString();
+        Namespace.create(prefix + "-active", Instant.now().plus(1, DAYS)).persist();
+        Namespace.create(prefix + "-inactive", Instant.now().minus(1, DAYS)).persist();
+        namespaceController.isNamespaceActive(prefix + "-active").await().indefinitely();
+        namespaceController.isNamespaceActive(prefix + "-inactive").await().indefinitely();
+
+        String eTag = given().queryParam("prefix", prefix)
+                .when().get("/namespace/active")
+                .then().statusCode(200)
+                .body(prefix + "-active.active", is(1))
+                .body(prefix + "-inactive.active", is(0))
+                .body(prefix + "-inactive.inactive", is(1))
+                .extract().header("ETag");
+        assertThat(eTag).isNotBlank();
+
+        given().queryParam("prefix", prefix)
+                .header("If-None-Match", eTag)
+                .when().get("/namespace/active")
+                .then().statusCode(304);
+
+        namespaceController.extendAndWait(namespaceDto(prefix + "-inactive"));
+
+        given().queryParam("prefix", prefix)
+                .header("If-None-Match", eTag)
+                .when().get("/namespace/active")
+                .then().statusCode(200)
+                .body(prefix + "-inactive.active", is(1));
+    }
+
     @Test
     void isNamespaceActiveThrowsNotFoundForUnknownNamespace() {
         String namespaceName = UUID.randomUUID().toString();
 
-        assertThatThrownBy(() -> namespaceController.isNamespaceActive(namespaceName))
+        assertThatThrownBy(() -> namespaceController.isNamespaceActive(namespaceName).await().indefinitely())
                 .isInstanceOf(NotFoundException.class)
                 .hasMessageContaining(namespaceName);
     }
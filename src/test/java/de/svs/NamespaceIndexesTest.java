@@ -0,0 +1,68 @@
+package de.svs;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class NamespaceIndexesTest {
+
+    @Inject
+    NamespaceIndexes namespaceIndexes;
+
+    @BeforeEach
+    public void beforeEach() {
+        Namespace.deleteAll();
+        namespaceIndexes.ensureIndexes();
+    }
+
+    @Test
+    public void findByNameUsesUniqueIndex() {
+        Namespace.create("indexed", Instant.now()).persist();
+
+        Document explain = Namespace.<Namespace>mongoCollection().find(Filters.eq("name", "indexed")).explain();
+
+        assertThat(explain.toJson()).contains("IXSCAN").contains(NamespaceIndexes.NAME_INDEX);
+    }
+
+    @Test
+    public void findByActivatedUntilOlderThanUsesIndex() {
+        Namespace.create("indexed", Instant.now()).persist();
+
+        Document explain = Namespace.<Namespace>mongoCollection().find(Filters.lt("activatedUntil", Instant.now())).explain();
+
+        assertThat(explain.toJson()).contains("IXSCAN").contains(NamespaceIndexes.ACTIVATED_UNTIL_INDEX);
+    }
+
+    @Test
+    public void duplicatesAreMergedKeepingTheLatestActivation() {
+        MongoCollection<Namespace> collection = Namespace.mongoCollection();
+        collection.dropIndex(NamespaceIndexes.NAME_INDEX);
+        Instant latest = Instant.now().plus(3, DAYS);
+        Namespace.create("twice", Instant.now()).persist();
+        Namespace keep = Namespace.create("twice", latest);
+        keep.persist();
+        Namespace.create("twice", Instant.EPOCH).persist();
+        Namespace.create("once", Instant.now()).persist();
+
+        namespaceIndexes.ensureIndexes();
+
+        assertThat(Namespace.<Namespace>list("name", "twice")).containsExactly(keep);
+        assertThat(Namespace.findByName("once")).isPresent();
+        List<String> indexNames = collection.listIndexes().map(index -> index.getString("name")).into(new ArrayList<>());
+        assertThat(indexNames).contains(NamespaceIndexes.NAME_INDEX, NamespaceIndexes.ACTIVATED_UNTIL_INDEX);
+    }
+}
@@ -0,0 +1,35 @@
+package de.svs;
+
+import de.svs.status.HttpsVersionStub;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+@WithTestResource(HttpsVersionStub.class)
+class NamespaceStatusMultiplexTest {
+
+    @Test
+    void interleavesTheStatusOfAllNamespacesOnOneStream() {
+        String body = given()
+                .queryParam("namespace", "first", "second", "first")
+                .get("/namespace/status/multi")
+                .then()
+                .statusCode(200)
+                .extract()
+                .asString();
+
+        assertThat(body).contains("\"namespace\":\"first\"", "\"namespace\":\"second\"", "available!");
+        assertThat(body.split("event:namespace-done", -1)).hasSize(3);
+        assertThat(body).contains("data:first", "data:second");
+    }
+
+    @Test
+    void requiresAtLeastOneNamespace() {
+        given().get("/namespace/status/multi").then().statusCode(400);
+    }
+}
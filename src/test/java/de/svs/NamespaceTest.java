@@ -9,8 +9,10 @@ import java.time.Instant;
 import java.util.List;
 
 import static java.time.temporal.ChronoUnit.DAYS;
+import static java.time.temporal.ChronoUnit.MILLIS;
 import static java.time.temporal.ChronoUnit.MINUTES;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 @QuarkusTest
 @WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
@@ -69,6 +71,53 @@ class NamespaceTest {
         assertThat(ns.activatedUntil).isEqualTo(now);
     }
 
+    @Test
+    public void extendActivatedUntilMovesActivationForward() {
+        Instant now = Instant.now();
+        Instant later = now.plus(1, DAYS);
+        Namespace ns = persistNamespace("gurke", now);
+
+        assertThat(Namespace.extendActivatedUntil("gurke", later)).get()
+                .satisfies(updated -> assertThat(updated.id).isEqualTo(ns.id))
+                .satisfies(updated -> assertThat(updated.activatedUntil).isCloseTo(later, within(1, MILLIS)));
+        assertThat(Namespace.findByName("gurke").orElseThrow().activatedUntil).isCloseTo(later, within(1, MILLIS));
+    }
+
+    @Test
+    public void extendActivatedUntilKeepsLaterActivation() {
+        Instant now = Instant.now();
+        persistNamespace("gummi", now);
+
+        assertThat(Namespace.extendActivatedUntil("gummi", now.minus(1, DAYS))).get()
+                .satisfies(updated -> assertThat(updated.activatedUntil).isCloseTo(now, within(1, MILLIS)));
+    }
+
+    @Test
+    public void extendActivatedUntilOfUnknownNamespace() {
+        assertThat(Namespace.extendActivatedUntil("unknown", Instant.now())).isEmpty();
+        assertThat(Namespace.findByName("unknown")).isEmpty();
+    }
+
+    @Test
+    public void createIfNotExistsCreatesNamespace() {
+        Instant activatedUntil = Instant.now().plus(1, DAYS);
+
+        Namespace created = Namespace.createIfNotExists("neu", activatedUntil).orElseThrow();
+
+        assertThat(created.name).isEqualTo("neu");
+        assertThat(created.activatedUntil).isCloseTo(activatedUntil, within(1, MILLIS));
+        assertThat(Namespace.findByName("neu")).contains(created);
+    }
+
+    @Test
+    public void createIfNotExistsLeavesExistingNamespaceUntouched() {
+        Namespace existing = persistNamespace("alt", Instant.EPOCH);
+
+        assertThat(Namespace.createIfNotExists("alt", Instant.now())).isEmpty();
+        assertThat(Namespace.findByName("alt").orElseThrow().activatedUntil).isEqualTo(Instant.EPOCH);
+        assertThat(Namespace.findByName("alt")).contains(existing);
+    }
+
     private static Namespace persistNamespace(String name, Instant activatedUntil) {
         Namespace namespace = Namespace.create(name, activatedUntil);
 
@@ -0,0 +1,32 @@
+package de.svs;
+
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class ReactiveNamespaceRepositoryTest {
+
+    @Inject
+    ReactiveNamespaceRepository reactiveNamespaceRepository;
+
+    @Test
+    void extendOrCreateAndFindByName() {
+        String name = UUID.randomUUID().toString();
+        Instant activatedUntil = Instant.now().plus(1, DAYS).truncatedTo(ChronoUnit.MILLIS);
+
+        Namespace created = reactiveNamespaceRepository.extendOrCreate(name, activatedUntil).await().indefinitely();
+
+        assertThat(created.activatedUntil).isEqualTo(activatedUntil);
+        assertThat(reactiveNamespaceRepository.findByName(name).await().indefinitely().id).isEqualTo(created.id);
+    }
+}
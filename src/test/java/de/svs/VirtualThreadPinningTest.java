@@ -0,0 +1,65 @@
+package de.svs;
+
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Calls the endpoints running on virtual threads concurrently and fails if a virtual thread got pinned
+ * to its carrier thread, as reported by the jdk.VirtualThreadPinned JFR event.
+ */
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class VirtualThreadPinningTest {
+
+    @Test
+    void blockingEndpointsDoNotPinCarrierThreads() throws InterruptedException, ExecutionException {
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+
+            List<String> names = IntStream.range(0, 20).mapToObj(i -> UUID.randomUUID().toString()).toList();
+            List<Future<?>> requests = new ArrayList<>();
+            try (ExecutorService executor = Executors.newFixedThreadPool(20)) {
+                for (String name : names) {
+                    requests.add(executor.submit(() -> {
+                        given().contentType("application/json").body("{\"name\": \"" + name + "\"}")
+                                .put("/namespace").then().statusCode(200);
+                        given().get("/namespace/" + name + "/active").then().statusCode(200);
+                        given().contentType("application/x-www-form-urlencoded")
+                                .formParam("namespace", name).formParam("action", "ACTIVATE")
+                                .post("/namespace").then().statusCode(200);
+                    }));
+                }
+            }
+            // a failed request fails the test, not just its thread
+            for (Future<?> request : requests) {
+                request.get();
+            }
+            // let the stream deliver the events of the last requests
+            Thread.sleep(1500);
+        }
+
+        assertThat(pinned)
+                .as(() -> "pinned virtual threads: " + pinned.stream().map(RecordedEvent::getStackTrace).toList())
+                .isEmpty();
+    }
+}
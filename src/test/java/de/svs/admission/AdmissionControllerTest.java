@@ -0,0 +1,168 @@
+package de.svs.admission;
+
+import de.svs.Namespace;
+import de.svs.QuarkusMongoDbTestResource;
+import de.svs.cache.NamespaceActivationCache;
+import de.svs.status.HttpsVersionStub;
+import de.svs.status.StatusDto;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import jakarta.inject.Inject;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static java.time.temporal.ChronoUnit.HOURS;
+import static java.time.temporal.ChronoUnit.MINUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@QuarkusTest
+@TestProfile(AdmissionControllerTest.OneColdStartAtATime.class)
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+@WithTestResource(HttpsVersionStub.class)
+class AdmissionControllerTest {
+
+    @Inject
+    AdmissionController admissionController;
+
+    @Inject
+    NamespaceActivationCache namespaceActivationCache;
+
+    @Test
+    void queuesActivationsWhileAllSlotsAreTaken() {
+        String blocker = UUID.randomUUID().toString();
+        String namespace = UUID.randomUUID().toString();
+        assertThat(admissionController.tryAcquire(blocker)).isTrue();
+        AtomicBoolean activated = new AtomicBoolean();
+
+        Admission admission = admissionController.admit(namespace, Priority.PIPELINE, () -> activated.set(true));
+        assertThat(admission.pending()).isTrue();
+        AssertSubscriber<StatusDto> subscriber = admission.positions().subscribe().withSubscriber(AssertSubscriber.create(10));
+
+        subscriber.awaitItems(1);
+        StatusDto status = subscriber.getItems().getFirst();
+        assertThat(status.namespace()).isEqualTo(namespace);
+        assertThat(status.message()).contains("position 1");
+        assertThat(status.finalMessage()).isFalse();
+        assertThat(activated).isFalse();
+
+        admissionController.release(blocker);
+
+        subscriber.awaitCompletion(Duration.ofSeconds(5));
+        assertThat(activated).isTrue();
+        // the slot is given back once the namespace is available
+        await().atMost(Duration.ofSeconds(10)).until(() -> admissionController.tryAcquire(blocker));
+        admissionController.release(blocker);
+    }
+
+    @Test
+    void interactiveActivationsOvertakePipelines() {
+        String blocker = UUID.randomUUID().toString();
+        String pipeline = UUID.randomUUID().toString();
+        String interactive = UUID.randomUUID().toString();
+        assertThat(admissionController.tryAcquire(blocker)).isTrue();
+        List<String> activated = new CopyOnWriteArrayList<>();
+
+        admissionController.admit(pipeline, Priority.PIPELINE, () -> activated.add(pipeline)).positions()
+                .subscribe().withSubscriber(AssertSubscriber.create(10));
+        int position = admissionController.enqueue(interactive, Priority.INTERACTIVE, () -> activated.add(interactive));
+
+        assertThat(position).isEqualTo(1);
+        admissionController.release(blocker);
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> activated.size() == 2);
+        assertThat(activated).containsExactly(interactive, pipeline);
+    }
+
+    @Test
+    void activeNamespacesAreNotQueued() {
+        String blocker = UUID.randomUUID().toString();
+        String name = UUID.randomUUID().toString();
+        namespaceActivationCache.put(Namespace.extendOrCreate(name, Instant.now().plus(1, DAYS)));
+        assertThat(admissionController.tryAcquire(blocker)).isTrue();
+        AtomicBoolean activated = new AtomicBoolean();
+        try {
+            int position = admissionController.enqueue(name, Priority.PIPELINE, () -> activated.set(true));
+
+            assertThat(position).isZero();
+            assertThat(activated).isTrue();
+        } finally {
+            admissionController.release(blocker);
+        }
+    }
+
+    @Test
+    void waitsForTicketsOfOtherReplicas() {
+        String blocker = UUID.randomUUID().toString();
+        String namespace = UUID.randomUUID().toString();
+        AdmissionTicket other = new AdmissionTicket();
+        other.id = new ObjectId();
+        other.namespace = UUID.randomUUID().toString();
+        other.rank = Instant.now().minus(1, HOURS);
+        other.holder = "other-replica";
+        other.expiresAt = Instant.now().plus(1, MINUTES);
+        other.persist();
+        AtomicBoolean activated = new AtomicBoolean();
+        try {
+            // the slot is free, but a ticket of another replica is ahead
+            Admission admission = admissionController.admit(namespace, Priority.PIPELINE, () -> activated.set(true));
+            assertThat(admission.pending()).isTrue();
+            AssertSubscriber<StatusDto> subscriber = admission.positions().subscribe().withSubscriber(AssertSubscriber.create(10));
+
+            subscriber.awaitItems(1);
+            assertThat(subscriber.getItems().getFirst().message()).contains("position 2");
+            assertThat(activated).isFalse();
+
+            other.delete();
+
+            subscriber.awaitCompletion(Duration.ofSeconds(5));
+            assertThat(activated).isTrue();
+        } finally {
+            AdmissionTicket.deleteById(other.id);
+        }
+        await().atMost(Duration.ofSeconds(10)).until(() -> admissionController.tryAcquire(blocker));
+        admissionController.release(blocker);
+    }
+
+    @Test
+    void coldStartsOfActiveNamespacesWaitForASlot() {
+        String blocker = UUID.randomUUID().toString();
+        String name = UUID.randomUUID().toString();
+        namespaceActivationCache.put(Namespace.extendOrCreate(name, Instant.now().plus(1, DAYS)));
+        assertThat(admissionController.tryAcquire(blocker)).isTrue();
+
+        Admission admission = admissionController.admitColdStart(name, Priority.PIPELINE);
+        assertThat(admission.pending()).isTrue();
+        AssertSubscriber<StatusDto> subscriber = admission.positions().subscribe().withSubscriber(AssertSubscriber.create(10));
+        subscriber.awaitItems(1);
+        assertThat(subscriber.getItems().getFirst().message()).contains("position 1");
+
+        admissionController.release(blocker);
+
+        subscriber.awaitCompletion(Duration.ofSeconds(5));
+        await().atMost(Duration.ofSeconds(10)).until(() -> admissionController.tryAcquire(blocker));
+        admissionController.release(blocker);
+    }
+
+    public static class OneColdStartAtATime implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "admission.enabled", "true",
+                    "admission.maxConcurrentColdStarts", "1",
+                    "admission.dispatchInterval", "200ms");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package de.svs.cache;
+
+import de.svs.Namespace;
+import de.svs.QuarkusMongoDbTestResource;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static java.time.temporal.ChronoUnit.MILLIS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.awaitility.Awaitility.await;
+
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class NamespaceActivationCacheTest {
+
+    @Inject
+    NamespaceActivationCache namespaceActivationCache;
+
+    @Test
+    void reloadKeepsLaterActivatedUntilOfTheSameNamespace() {
+        String name = UUID.randomUUID().toString();
+        Namespace stored = Namespace.create(name, Instant.now().plus(1, DAYS));
+        stored.persist();
+
+        // an extension the cache has seen before the database returns it
+        Namespace extended = Namespace.create(name, Instant.now().plus(2, DAYS));
+        extended.id = stored.id;
+        namespaceActivationCache.put(extended);
+
+        namespaceActivationCache.reload();
+
+        assertThat(namespaceActivationCache.cached(name)).isCloseTo(extended.activatedUntil, within(1, MILLIS));
+    }
+
+    @Test
+    void reloadEvictsNamespacesMissingFromTheDatabase() {
+        String name = UUID.randomUUID().toString();
+        Namespace deleted = Namespace.create(name, Instant.now().plus(1, DAYS));
+        deleted.id = new ObjectId();
+        namespaceActivationCache.put(deleted);
+
+        namespaceActivationCache.reload();
+
+        assertThat(namespaceActivationCache.cached(name)).isNull();
+    }
+
+    @Test
+    void reloadDoesNotBringBackNamespacesRemovedDuringTheScan() {
+        String name = UUID.randomUUID().toString();
+        Namespace namespace = Namespace.create(name, Instant.now().plus(1, DAYS));
+        namespace.persist();
+        await().atMost(Duration.ofSeconds(10)).until(() -> namespaceActivationCache.cached(name) != null);
+
+        // the delete has been applied, but the scan still sees the namespace, like a scan that read it just before
+        namespaceActivationCache.removeById(namespace.id);
+        namespaceActivationCache.reload();
+
+        assertThat(namespaceActivationCache.cached(name)).isNull();
+        namespace.delete();
+    }
+}
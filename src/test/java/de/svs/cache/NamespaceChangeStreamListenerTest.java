@@ -0,0 +1,67 @@
+package de.svs.cache;
+
+import de.svs.Namespace;
+import de.svs.QuarkusMongoDbTestResource;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static java.time.temporal.ChronoUnit.MILLIS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.awaitility.Awaitility.await;
+
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class NamespaceChangeStreamListenerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Inject
+    NamespaceActivationCache namespaceActivationCache;
+
+    @Test
+    void insertsOfOtherReplicasAreApplied() {
+        String name = UUID.randomUUID().toString();
+        Instant activatedUntil = Instant.now().plus(1, DAYS);
+
+        // persisting directly bypasses the cache, like a write of another replica
+        Namespace.create(name, activatedUntil).persist();
+
+        await().atMost(TIMEOUT).untilAsserted(() ->
+                assertThat(namespaceActivationCache.cached(name)).isCloseTo(activatedUntil, within(1, MILLIS)));
+    }
+
+    @Test
+    void updatesOfOtherReplicasAreApplied() {
+        String name = UUID.randomUUID().toString();
+        Namespace namespace = Namespace.create(name, Instant.now());
+        namespace.persist();
+        await().atMost(TIMEOUT).until(() -> namespaceActivationCache.cached(name) != null);
+
+        Instant later = Instant.now().plus(2, DAYS);
+        namespace.updateActivatedUntilIfLater(later);
+        namespace.update();
+
+        await().atMost(TIMEOUT).untilAsserted(() ->
+                assertThat(namespaceActivationCache.cached(name)).isCloseTo(later, within(1, MILLIS)));
+    }
+
+    @Test
+    void deletesOfOtherReplicasAreApplied() {
+        String name = UUID.randomUUID().toString();
+        Namespace namespace = Namespace.create(name, Instant.now());
+        namespace.persist();
+        await().atMost(TIMEOUT).until(() -> namespaceActivationCache.cached(name) != null);
+
+        namespace.delete();
+
+        await().atMost(TIMEOUT).until(() -> namespaceActivationCache.cached(name) == null);
+    }
+}
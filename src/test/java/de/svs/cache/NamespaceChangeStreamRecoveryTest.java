@@ -0,0 +1,84 @@
+package de.svs.cache;
+
+import com.mongodb.MongoException;
+import de.svs.Namespace;
+import de.svs.QuarkusMongoDbTestResource;
+import de.svs.ResumeToken;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the listener step by step, so it is not started on its own.
+ */
+@QuarkusTest
+@TestProfile(NamespaceChangeStreamRecoveryTest.ListenerNotStarted.class)
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class NamespaceChangeStreamRecoveryTest {
+
+    @Inject
+    NamespaceChangeStreamListener namespaceChangeStreamListener;
+
+    @Inject
+    NamespaceActivationCache namespaceActivationCache;
+
+    @Test
+    void expiredResumeTokenLeadsToFullReload() {
+        namespaceChangeStreamListener.resumeAfter(BsonDocument.parse("{\"_data\": \"00\"}"));
+
+        // ChangeStreamHistoryLost
+        namespaceChangeStreamListener.onStreamFailure(new MongoException(286, "resume point no longer in the oplog"));
+
+        assertThat(namespaceChangeStreamListener.hasResumeToken()).isFalse();
+
+        // written while the stream was gone, the restarted stream picks it up with a full reload
+        String name = UUID.randomUUID().toString();
+        Namespace.create(name, Instant.now().plus(1, DAYS)).persist();
+        assertThat(namespaceActivationCache.cached(name)).isNull();
+
+        namespaceChangeStreamListener.step();
+
+        assertThat(namespaceActivationCache.cached(name)).isNotNull();
+    }
+
+    @Test
+    void otherErrorsKeepTheResumeToken() {
+        namespaceChangeStreamListener.resumeAfter(BsonDocument.parse("{\"_data\": \"00\"}"));
+
+        // HostUnreachable
+        namespaceChangeStreamListener.onStreamFailure(new MongoException(6, "connection lost"));
+
+        assertThat(namespaceChangeStreamListener.hasResumeToken()).isTrue();
+        namespaceChangeStreamListener.resumeAfter(null);
+    }
+
+    @Test
+    void resumeTokensPersistedByEarlierVersionsAreRemoved() {
+        ResumeToken.save("namespaces-change-stream-activator-6d9f7c-x2k4p", "{\"_data\": \"00\"}");
+        ResumeToken.save("namespaces-watch-test", "4711");
+
+        assertThat(namespaceChangeStreamListener.removePersistedResumeTokens()).isEqualTo(1);
+
+        assertThat(ResumeToken.load("namespaces-change-stream-activator-6d9f7c-x2k4p")).isEmpty();
+        assertThat(ResumeToken.load("namespaces-watch-test")).isPresent();
+        ResumeToken.clear("namespaces-watch-test");
+    }
+
+    public static class ListenerNotStarted implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("namespace.change-stream.enabled", "false");
+        }
+    }
+}
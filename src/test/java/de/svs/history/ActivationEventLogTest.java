@@ -0,0 +1,125 @@
+package de.svs.history;
+
+import de.svs.QuarkusMongoDbTestResource;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static java.time.temporal.ChronoUnit.DAYS;
+import static java.time.temporal.ChronoUnit.HOURS;
+import static java.time.temporal.ChronoUnit.MINUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class ActivationEventLogTest {
+
+    @Inject
+    ActivationEventLog activationEventLog;
+
+    @Inject
+    ActivationEventController activationEventController;
+
+    @BeforeEach
+    void beforeEach() {
+        ActivationEvent.deleteAll();
+    }
+
+    @Test
+    void recordedEventsArePagedInOrder() {
+        String namespace = UUID.randomUUID().toString();
+        for (int i = 0; i < 5; i++) {
+            activationEventLog.record(namespace, Instant.now().plus(i, DAYS), "test");
+        }
+        activationEventLog.flush();
+
+        Instant settledBefore = Instant.now().plus(1, MINUTES);
+        ActivationEventPage first = activationEventLog.find(Optional.of(namespace), Optional.empty(), 3, settledBefore);
+        ActivationEventPage second = activationEventLog.find(Optional.of(namespace), Optional.of(first.next()), 3, settledBefore);
+        ActivationEventPage third = activationEventLog.find(Optional.of(namespace), Optional.of(second.next()), 3, settledBefore);
+
+        assertThat(first.events()).hasSize(3);
+        assertThat(second.events()).hasSize(2);
+        assertThat(third.events()).isEmpty();
+        assertThat(third.next()).isEqualTo(second.next());
+        assertThat(first.events().getFirst().activatedUntil()).isBefore(second.events().getLast().activatedUntil());
+    }
+
+    @Test
+    void recentEventsAreHeldBackUntilSettled() {
+        String namespace = UUID.randomUUID().toString();
+        activationEventLog.record(namespace, Instant.now(), "test");
+        activationEventLog.flush();
+
+        assertThat(activationEventLog.find(Optional.of(namespace), Optional.empty(), 10, Instant.now().minus(1, MINUTES)).events()).isEmpty();
+    }
+
+    @Test
+    void activationsAreLogged() {
+        String namespace = UUID.randomUUID().toString();
+        given().contentType("application/json").body("{\"name\": \"" + namespace + "\"}").put("/namespace").then().statusCode(200);
+        activationEventLog.flush();
+
+        ActivationEventPage page = activationEventLog.find(Optional.of(namespace), Optional.empty(), 10, Instant.now().plus(1, MINUTES));
+        assertThat(page.events()).singleElement().extracting(ActivationEventDto::source).isEqualTo("createNamespaceEntry");
+    }
+
+    @Test
+    void pageApiValidatesItsParameters() {
+        given().queryParam("after", "not-an-id").get("/namespace/events").then().statusCode(400);
+        given().queryParam("limit", 0).get("/namespace/events").then().statusCode(400);
+        given().get("/namespace/events").then().statusCode(200);
+    }
+
+    @Test
+    void tailStartsWithNewEventsWithoutCursor() {
+        String namespace = UUID.randomUUID().toString();
+        persistEvent(namespace, Instant.now().minus(1, DAYS));
+
+        AssertSubscriber<OutboundSseEvent> subscriber = activationEventController.tail(Optional.of(namespace), Optional.empty(), Optional.empty())
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        ActivationEvent recent = persistEvent(namespace, Instant.now());
+
+        subscriber.awaitItems(1, Duration.ofSeconds(15));
+        assertThat(subscriber.getItems()).extracting(OutboundSseEvent::getId).containsExactly(recent.id.toHexString());
+        subscriber.cancel();
+    }
+
+    @Test
+    void tailResumesAfterLastEventId() {
+        String namespace = UUID.randomUUID().toString();
+        ActivationEvent seen = persistEvent(namespace, Instant.now().minus(2, DAYS));
+        ActivationEvent missed = persistEvent(namespace, Instant.now().minus(1, DAYS));
+        ActivationEvent latest = persistEvent(namespace, Instant.now().minus(1, HOURS));
+
+        AssertSubscriber<OutboundSseEvent> subscriber = activationEventController
+                .tail(Optional.of(namespace), Optional.empty(), Optional.of(seen.id.toHexString()))
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+
+        subscriber.awaitItems(2, Duration.ofSeconds(10));
+        assertThat(subscriber.getItems()).extracting(OutboundSseEvent::getId)
+                .containsExactly(missed.id.toHexString(), latest.id.toHexString());
+        assertThat(subscriber.getItems()).extracting(OutboundSseEvent::getName).containsOnly("activation");
+        subscriber.cancel();
+    }
+
+    private static ActivationEvent persistEvent(String namespace, Instant timestamp) {
+        ActivationEvent event = ActivationEvent.create(namespace, timestamp.plus(2, DAYS), "test");
+        event.id = new ObjectId(Date.from(timestamp));
+        event.timestamp = timestamp;
+        event.persist();
+        return event;
+    }
+}
@@ -0,0 +1,76 @@
+package de.svs.keda;
+
+import de.svs.Namespace;
+import de.svs.QuarkusMongoDbTestResource;
+import de.svs.cache.NamespaceActivationCache;
+import de.svs.keda.grpc.ExternalScaler;
+import de.svs.keda.grpc.GetMetricsRequest;
+import de.svs.keda.grpc.IsActiveResponse;
+import de.svs.keda.grpc.ScaledObjectRef;
+import io.quarkus.grpc.GrpcClient;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class KedaExternalScalerTest {
+
+    @GrpcClient("externalScaler")
+    ExternalScaler externalScaler;
+
+    @Inject
+    NamespaceActivationCache namespaceActivationCache;
+
+    @Test
+    void isActiveAndGetMetrics() {
+        String name = UUID.randomUUID().toString();
+        namespaceActivationCache.put(Namespace.extendOrCreate(name, Instant.now().plus(1, DAYS)));
+        ScaledObjectRef ref = ScaledObjectRef.newBuilder().setName("api").setNamespace(name).build();
+
+        assertThat(externalScaler.isActive(ref).await().atMost(Duration.ofSeconds(5)).getResult()).isTrue();
+        assertThat(externalScaler.getMetricSpec(ref).await().atMost(Duration.ofSeconds(5)).getMetricSpecs(0).getMetricName())
+                .isEqualTo(KedaExternalScaler.METRIC_NAME);
+        assertThat(externalScaler.getMetrics(GetMetricsRequest.newBuilder().setScaledObjectRef(ref).build())
+                .await().atMost(Duration.ofSeconds(5))
+                .getMetricValues(0).getMetricValue()).isEqualTo(1);
+    }
+
+    @Test
+    void unknownNamespaceIsInactive() {
+        ScaledObjectRef ref = ScaledObjectRef.newBuilder()
+                .setNamespace("keda")
+                .putScalerMetadata("namespace", UUID.randomUUID().toString())
+                .build();
+
+        assertThat(externalScaler.isActive(ref).await().atMost(Duration.ofSeconds(5)).getResult()).isFalse();
+    }
+
+    @Test
+    void streamIsActivePushesActivationAndExpiry() {
+        String name = UUID.randomUUID().toString();
+        namespaceActivationCache.put(Namespace.extendOrCreate(name, Instant.now().minus(1, SECONDS)));
+        ScaledObjectRef ref = ScaledObjectRef.newBuilder().setName("api").setNamespace(name).build();
+
+        AssertSubscriber<IsActiveResponse> subscriber = externalScaler.streamIsActive(ref)
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        subscriber.awaitItems(1, Duration.ofSeconds(5));
+
+        namespaceActivationCache.put(Namespace.extendActivatedUntil(name, Instant.now().plus(2, SECONDS)).orElseThrow());
+        subscriber.awaitItems(2, Duration.ofSeconds(5));
+        subscriber.awaitItems(3, Duration.ofSeconds(10));
+        subscriber.cancel();
+
+        assertThat(subscriber.getItems()).extracting(IsActiveResponse::getResult).containsExactly(false, true, false);
+    }
+}
@@ -0,0 +1,83 @@
+package de.svs.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects latencies per kind of request and stage of a {@link LoadTest} and writes them as
+ * HdrHistogram percentile distributions plus one line per stage for the saturation curve.
+ */
+class LatencyReport {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private record Row(String stage, String kind, long offered, double seconds, Histogram histogram, long errors) {
+    }
+
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final List<Row> rows = new ArrayList<>();
+    private final Path directory;
+
+    LatencyReport(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    void record(String kind, long startNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        recorders.computeIfAbsent(kind, k -> new Recorder(3)).recordValue(Math.max(1, micros));
+    }
+
+    void error(String kind) {
+        errors.computeIfAbsent(kind, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Takes the latencies recorded since the last stage and writes their percentile distribution.
+     */
+    void finishStage(String stage, Map<String, Long> offeredLoadByKind, double seconds) throws IOException {
+        for (String kind : new TreeMap<>(recorders).keySet()) {
+            Histogram histogram = recorders.get(kind).getIntervalHistogram();
+            long errorCount = errors.computeIfAbsent(kind, k -> new LongAdder()).sumThenReset();
+            rows.add(new Row(stage, kind, offeredLoadByKind.getOrDefault(kind, 0L), seconds, histogram, errorCount));
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(stage + "-" + kind + ".hgrm")))) {
+                histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+    }
+
+    /**
+     * Writes saturation.csv and prints a summary: offered load against achieved throughput and latency.
+     */
+    void write(PrintStream console) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("stage,kind,offered,requests,errors,throughput_per_s,p50_ms,p99_ms,p999_ms,max_ms");
+        for (Row row : rows) {
+            Histogram h = row.histogram();
+            lines.add(String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f",
+                    row.stage(), row.kind(), row.offered(), h.getTotalCount(), row.errors(),
+                    h.getTotalCount() / row.seconds(),
+                    millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(99)),
+                    millis(h.getValueAtPercentile(99.9)), millis(h.getMaxValue())));
+        }
+        Files.write(directory.resolve("saturation.csv"), lines);
+        lines.forEach(console::println);
+    }
+
+    private static double millis(long micros) {
+        return micros / MICROS_PER_MILLI;
+    }
+}
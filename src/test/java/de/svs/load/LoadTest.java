@@ -0,0 +1,184 @@
+package de.svs.load;
+
+import de.svs.Namespace;
+import de.svs.QuarkusMongoDbTestResource;
+import de.svs.cache.NamespaceActivationCache;
+import de.svs.status.HttpsVersionStub;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load generator simulating the traffic of a cluster against one activator:
+ * <ul>
+ *     <li>KEDA scalers polling /namespace/{ns}/active at a fixed interval</li>
+ *     <li>clients waiting on the /namespace/status SSE stream</li>
+ *     <li>bursts of extendAndWait, like many pipelines starting at once</li>
+ * </ul>
+ * The /version endpoints of the namespaces are answered by {@link HttpsVersionStub}.
+ * <p>
+ * The number of scalers is increased stage by stage. The latencies of every stage are written as HdrHistogram
+ * percentile distributions to target/load-test, together with saturation.csv comparing offered load with the
+ * achieved throughput and latency of each stage.
+ * <p>
+ * Excluded from the regular build, run it with
+ * <pre>
+ * ./mvnw test -Dtest=LoadTest -DexcludedGroups= -Dload.scalers=100,200,400,800 -Dload.stageDuration=PT1M
+ * </pre>
+ */
+@Tag("load")
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+@WithTestResource(HttpsVersionStub.class)
+class LoadTest {
+
+    private static final Logger logger = Logger.getLogger(LoadTest.class);
+
+    private static final int[] SCALER_STAGES = Arrays.stream(System.getProperty("load.scalers", "50,100,200,400").split(","))
+            .mapToInt(Integer::parseInt)
+            .toArray();
+    private static final int NAMESPACES = Integer.getInteger("load.namespaces", 200);
+    private static final int SSE_CLIENTS = Integer.getInteger("load.sseClients", 20);
+    private static final int BURST_SIZE = Integer.getInteger("load.burstSize", 20);
+    private static final Duration POLL_INTERVAL = Duration.parse(System.getProperty("load.pollInterval", "PT1S"));
+    private static final Duration BURST_INTERVAL = Duration.parse(System.getProperty("load.burstInterval", "PT5S"));
+    private static final Duration STAGE_DURATION = Duration.parse(System.getProperty("load.stageDuration", "PT20S"));
+
+    @TestHTTPResource("/namespace")
+    URI namespaceUri;
+
+    @Inject
+    NamespaceActivationCache namespaceActivationCache;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private volatile boolean stageRunning;
+
+    @Test
+    void saturationCurve() throws Exception {
+        List<String> names = IntStream.range(0, NAMESPACES).mapToObj(i -> "load-" + i).toList();
+        Namespace.extendOrCreateAll(names, Instant.now().plus(1, DAYS));
+        namespaceActivationCache.reload();
+        LatencyReport report = new LatencyReport(Path.of("target", "load-test"));
+
+        for (int scalers : SCALER_STAGES) {
+            String stage = "scalers-" + scalers;
+            logger.info("starting stage " + stage);
+            stageRunning = true;
+            long started = System.nanoTime();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < scalers; i++) {
+                    String namespace = names.get(i % names.size());
+                    executor.submit(() -> pollActive(namespace, report));
+                }
+                for (int i = 0; i < SSE_CLIENTS; i++) {
+                    executor.submit(() -> waitForStatus(names, report));
+                }
+                executor.submit(() -> extendAndWaitBursts(names, executor, report));
+                Thread.sleep(STAGE_DURATION);
+                stageRunning = false;
+            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+            long offeredPolls = (long) (scalers * STAGE_DURATION.toMillis() / (double) POLL_INTERVAL.toMillis());
+            report.finishStage(stage, Map.of("active", offeredPolls), seconds);
+        }
+
+        report.write(System.out);
+        assertThat(Path.of("target", "load-test", "saturation.csv")).exists();
+    }
+
+    /**
+     * One KEDA scaler, polling at a fixed rate. Late responses are not compensated, so a saturated activator
+     * shows up as achieved throughput falling behind the offered load.
+     */
+    private void pollActive(String namespace, LatencyReport report) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(namespaceUri + "/" + namespace + "/active")).GET().build();
+        // spread the scalers over the interval, like independent ScaledObjects
+        sleep(Duration.ofMillis(ThreadLocalRandom.current().nextLong(POLL_INTERVAL.toMillis())));
+        while (stageRunning) {
+            long start = System.nanoTime();
+            send(request, "active", start, report);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            sleep(POLL_INTERVAL.minusMillis(Math.min(elapsedMillis, POLL_INTERVAL.toMillis())));
+        }
+    }
+
+    private void waitForStatus(List<String> names, LatencyReport report) {
+        while (stageRunning) {
+            String namespace = names.get(ThreadLocalRandom.current().nextInt(names.size()));
+            HttpRequest request = HttpRequest.newBuilder(URI.create(namespaceUri + "/status?namespace=" + namespace)).GET().build();
+            send(request, "status-sse", System.nanoTime(), report);
+        }
+    }
+
+    private void extendAndWaitBursts(List<String> names, ExecutorService executor, LatencyReport report) {
+        while (stageRunning) {
+            for (int i = 0; i < BURST_SIZE; i++) {
+                String namespace = names.get(ThreadLocalRandom.current().nextInt(names.size()));
+                HttpRequest request = HttpRequest.newBuilder(URI.create(namespaceUri + "/extendAndWait"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"name\": \"" + namespace + "\", \"maxWaitTimeInSeconds\": 30}"))
+                        .build();
+                executor.submit(() -> send(request, "extendAndWait", System.nanoTime(), report));
+            }
+            sleep(BURST_INTERVAL);
+        }
+    }
+
+    /**
+     * Records the time until the response, including streamed SSE responses, has been read completely.
+     */
+    private void send(HttpRequest request, String kind, long start, LatencyReport report) {
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                body.transferTo(OutputStream.nullOutputStream());
+            }
+            if (response.statusCode() >= 400) {
+                report.error(kind);
+            } else {
+                report.record(kind, start);
+            }
+        } catch (IOException e) {
+            report.error(kind);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package de.svs.metrics;
+
+import de.svs.NamespaceController;
+import de.svs.NamespaceDto;
+import de.svs.QuarkusMongoDbTestResource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class CustomNamespaceActivatorMetricsTest {
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    NamespaceController namespaceController;
+
+    @Test
+    void gaugesFollowTheWritePaths() {
+        String name = UUID.randomUUID().toString();
+        NamespaceDto dto = new NamespaceDto();
+        dto.setName(name);
+        namespaceController.createNamespaceEntry(dto).await().indefinitely();
+
+        assertThat(registry.get("active_namespaces").gauge().value()).isGreaterThanOrEqualTo(1);
+        assertThat(registry.get("total_namespaces").gauge().value()).isGreaterThanOrEqualTo(1);
+
+        Gauge active = registry.get("namespace_active").tag("namespace", name).gauge();
+        assertThat(active.value()).isEqualTo(1);
+        Gauge activatedUntil = registry.get("namespace_activated_until_seconds").tag("namespace", name).gauge();
+        assertThat(activatedUntil.value()).isCloseTo(Instant.now().plus(2, DAYS).getEpochSecond(), within(5.0));
+    }
+}
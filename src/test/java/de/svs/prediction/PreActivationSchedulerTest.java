@@ -0,0 +1,156 @@
+package de.svs.prediction;
+
+import de.svs.Namespace;
+import de.svs.QuarkusMongoDbTestResource;
+import de.svs.cache.NamespaceActivationCache;
+import de.svs.history.ActivationEvent;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static java.time.temporal.ChronoUnit.HOURS;
+import static java.time.temporal.ChronoUnit.MINUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class PreActivationSchedulerTest {
+
+    @Inject
+    PreActivationScheduler preActivationScheduler;
+
+    @Inject
+    NamespaceActivationCache namespaceActivationCache;
+
+    private final Instant now = Instant.now();
+    private final ZonedDateTime slot = now.plus(30, MINUTES).atZone(ZoneId.of("Europe/Berlin")).truncatedTo(ChronoUnit.HOURS);
+
+    @BeforeEach
+    void beforeEach() {
+        ActivationEvent.deleteAll();
+        Namespace.deleteAll();
+        namespaceActivationCache.reload();
+    }
+
+    @Test
+    void activatesNamespacesRegularlyUsedInTheUpcomingHour() {
+        String regular = inactiveNamespace();
+        String occasional = inactiveNamespace();
+        for (int week = 1; week <= 3; week++) {
+            // several activations on the same day count once
+            logActivation(regular, slot.minusWeeks(week).plusMinutes(5));
+            logActivation(regular, slot.minusWeeks(week).plusMinutes(25));
+        }
+        logActivation(occasional, slot.minusWeeks(2).plusMinutes(5));
+        preActivationScheduler.refreshHistograms(now);
+
+        assertThat(preActivationScheduler.preActivate(now)).containsExactly(regular);
+
+        assertThat(Namespace.findByName(regular).orElseThrow().activatedUntil).isEqualTo(slot.toInstant().plus(2, HOURS));
+        assertThat(Namespace.findByName(occasional).orElseThrow().activatedUntil).isBefore(now);
+    }
+
+    @Test
+    void respectsTheBudgetOfActiveNamespaces() {
+        for (int i = 0; i < 50; i++) {
+            Namespace.create(UUID.randomUUID().toString(), now.plus(1, DAYS)).persist();
+        }
+        String regular = inactiveNamespace();
+        for (int week = 1; week <= 3; week++) {
+            logActivation(regular, slot.minusWeeks(week).plusMinutes(5));
+        }
+        namespaceActivationCache.reload();
+        preActivationScheduler.refreshHistograms(now);
+
+        assertThat(preActivationScheduler.preActivate(now)).isEmpty();
+    }
+
+    @Test
+    void activeCandidatesDoNotUseUpTheBudget() {
+        for (int i = 0; i < 48; i++) {
+            Namespace.create(UUID.randomUUID().toString(), now.plus(1, DAYS)).persist();
+        }
+        // active now, but not until the end of the upcoming slot
+        String active = UUID.randomUUID().toString();
+        Namespace.create(active, now.plus(10, MINUTES)).persist();
+        String cold = inactiveNamespace();
+        for (int week = 1; week <= 3; week++) {
+            logActivation(active, slot.minusWeeks(week).plusMinutes(5));
+        }
+        for (int week = 1; week <= 2; week++) {
+            logActivation(cold, slot.minusWeeks(week).plusMinutes(5));
+        }
+        namespaceActivationCache.reload();
+        preActivationScheduler.refreshHistograms(now);
+
+        // 49 of 50 active, one cold start left for the less likely, cold candidate
+        assertThat(preActivationScheduler.preActivate(now)).containsExactlyInAnyOrder(active, cold);
+        assertThat(Namespace.findByName(cold).orElseThrow().activatedUntil).isEqualTo(slot.toInstant().plus(2, HOURS));
+    }
+
+    @Test
+    void keepsPreActivatingNamespacesThatAreUsed() {
+        String regular = inactiveNamespace();
+        for (int week = 7; week >= 6; week--) {
+            logActivation(regular, slot.minusWeeks(week).plusMinutes(5));
+        }
+        for (int week = 5; week >= 0; week--) {
+            ZonedDateTime weekSlot = slot.minusWeeks(week);
+            Instant weekNow = weekSlot.minusMinutes(30).toInstant();
+            preActivationScheduler.refreshHistograms(weekNow);
+
+            assertThat(preActivationScheduler.preActivate(weekNow)).containsExactly(regular);
+
+            // the developer uses the pre-activated namespace instead of activating it
+            logActivation(regular, weekSlot.plusMinutes(10), PreActivationScheduler.USED_SOURCE);
+        }
+    }
+
+    @Test
+    void logsUsesOfPreActivatedNamespacesOncePerWindow() {
+        String regular = inactiveNamespace();
+        String other = inactiveNamespace();
+        for (int week = 1; week <= 3; week++) {
+            logActivation(regular, slot.minusWeeks(week).plusMinutes(5));
+        }
+        preActivationScheduler.refreshHistograms(now);
+        assertThat(preActivationScheduler.preActivate(now)).containsExactly(regular);
+        await().atMost(Duration.ofSeconds(10)).until(() -> ActivationEvent.count("source", PreActivationScheduler.SOURCE) == 1);
+        Instant during = slot.toInstant().plus(10, MINUTES);
+
+        assertThat(preActivationScheduler.recordUse(regular, during)).isTrue();
+        assertThat(preActivationScheduler.recordUse(regular, during.plus(5, MINUTES))).isFalse();
+        assertThat(preActivationScheduler.recordUse(other, during)).isFalse();
+        assertThat(preActivationScheduler.recordUse(regular, slot.toInstant().plus(3, HOURS))).isFalse();
+        await().atMost(Duration.ofSeconds(10)).until(() -> ActivationEvent.count("source", PreActivationScheduler.USED_SOURCE) == 1);
+    }
+
+    private String inactiveNamespace() {
+        String name = UUID.randomUUID().toString();
+        Namespace namespace = Namespace.create(name, now.minus(1, DAYS));
+        namespace.persist();
+        namespaceActivationCache.put(namespace);
+        return name;
+    }
+
+    private static void logActivation(String namespace, ZonedDateTime at) {
+        logActivation(namespace, at, "extendAndWait");
+    }
+
+    private static void logActivation(String namespace, ZonedDateTime at, String source) {
+        ActivationEvent event = ActivationEvent.create(namespace, at.toInstant().plus(2, DAYS), source);
+        event.timestamp = at.toInstant();
+        event.persist();
+    }
+}
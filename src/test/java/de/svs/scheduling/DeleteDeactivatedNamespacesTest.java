@@ -16,6 +16,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 import static java.time.temporal.ChronoUnit.DAYS;
 import static java.time.temporal.ChronoUnit.MINUTES;
@@ -52,7 +54,7 @@ class DeleteDeactivatedNamespacesTest {
         createK8sNamespace(namespaceThatExistInK8s);
         createK8sNamespace(freshNamespace);
 
-        deleteDeactivatedNamespaces.syncAndCleanup(scheduledExecution());
+        deleteDeactivatedNamespaces.cleanup(scheduledExecution());
 
         assertThat(Namespace.findByIdOptional(namespaceThatDoesNotExistInK8s.id)).isEmpty();
         assertThat(Namespace.findByIdOptional(namespaceThatExistInK8s.id)).isEmpty();
@@ -78,7 +80,7 @@ class DeleteDeactivatedNamespacesTest {
         Namespace freshNamespaceOnlyInDb = persistNamespaceWithCustomOCreationDate("freshNamespaceOnlyInDb", Instant.now());
         persistNamespaceWithCustomOCreationDate("oldNamespaceOnlyInDb", Instant.now().minus(15, MINUTES));
 
-        deleteDeactivatedNamespaces.syncAndCleanup(scheduledExecution());
+        deleteDeactivatedNamespaces.resync(scheduledExecution());
 
         assertThat(Namespace.getAll())
                 .extracting(namespace -> namespace.name)
@@ -96,6 +98,26 @@ class DeleteDeactivatedNamespacesTest {
                         namespaceThatExistOnlyInK8s.name);
     }
 
+    @Test
+    void syncDatabaseWithKubernetesNamespacesDeletesStaleNamespacesInBatches() {
+        Instant oldEnough = Instant.now().minus(15, MINUTES);
+        List<Namespace> staleNamespaces = new ArrayList<>();
+        for (int i = 0; i < 1234; i++) {
+            Namespace namespace = Namespace.create("stale-" + i, Instant.now());
+            namespace.id = new ObjectId((int) oldEnough.getEpochSecond(), ++counter);
+            staleNamespaces.add(namespace);
+        }
+        Namespace.persist(staleNamespaces);
+        Namespace namespaceInK8s = persistNamespaceWithCustomOCreationDate("stillInK8s", oldEnough);
+        createK8sNamespace(namespaceInK8s);
+
+        deleteDeactivatedNamespaces.resync(scheduledExecution());
+
+        assertThat(Namespace.getAll())
+                .extracting(namespace -> namespace.name)
+                .containsExactly(namespaceInK8s.name);
+    }
+
     private void createK8sNamespace(Namespace namespaceThatExistInK8s) {
         io.fabric8.kubernetes.api.model.Namespace k8sNamespace = new NamespaceBuilder()
                 .withNewMetadata()
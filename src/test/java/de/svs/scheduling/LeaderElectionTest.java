@@ -0,0 +1,84 @@
+package de.svs.scheduling;
+
+import de.svs.QuarkusMongoDbTestResource;
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.kubernetes.client.WithKubernetesTestServer;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@WithKubernetesTestServer
+@QuarkusTest
+@TestProfile(LeaderElectionTest.LeaderElectionEnabled.class)
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class LeaderElectionTest {
+
+    @Inject
+    LeaderElection leaderElection;
+
+    @Inject
+    KubernetesClient k8sClient;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Test
+    void becomesLeaderAndKeepsRenewingTheLease() {
+        await().atMost(Duration.ofSeconds(10)).until(leaderElection::isLeader);
+
+        Lease lease = k8sClient.leases().inNamespace(k8sClient.getNamespace()).withName("namespace-activator-leader").get();
+        assertThat(lease).isNotNull();
+        assertThat(lease.getSpec().getHolderIdentity()).isNotBlank();
+        assertThat(registry.get("leader").gauge().value()).isEqualTo(1);
+
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> registry.get("leader_lease_renewal").timer().count() > 0);
+        assertThat(leaderElection.isLeader()).isTrue();
+    }
+
+    @Test
+    void takesPartAgainAfterLosingTheLease() {
+        await().atMost(Duration.ofSeconds(10)).until(leaderElection::isLeader);
+        double acquiredBefore = registry.get("leader_election_acquired").counter().count();
+
+        // another replica takes the lease over, e.g. because this one could not renew it in time
+        k8sClient.leases().inNamespace(k8sClient.getNamespace()).withName("namespace-activator-leader")
+                .edit(lease -> {
+                    lease.getSpec().setHolderIdentity("other-replica");
+                    lease.getSpec().setAcquireTime(ZonedDateTime.now());
+                    lease.getSpec().setRenewTime(ZonedDateTime.now());
+                    return lease;
+                });
+        await().atMost(Duration.ofSeconds(10)).until(() -> !leaderElection.isLeader());
+
+        // the other replica never renews, so its lease runs out and this replica gets it back
+        await().atMost(Duration.ofSeconds(20)).until(leaderElection::isLeader);
+        assertThat(registry.get("leader_election_acquired").counter().count()).isGreaterThan(acquiredBefore);
+        assertThat(registry.get("leader_election_restarts").counter().count()).isGreaterThanOrEqualTo(1);
+        Lease lease = k8sClient.leases().inNamespace(k8sClient.getNamespace()).withName("namespace-activator-leader").get();
+        assertThat(lease.getSpec().getHolderIdentity()).isNotEqualTo("other-replica");
+    }
+
+    public static class LeaderElectionEnabled implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "leader-election.enabled", "true",
+                    "leader-election.leaseDuration", "3s",
+                    "leader-election.renewDeadline", "2s",
+                    "leader-election.retryPeriod", "500ms");
+        }
+    }
+}
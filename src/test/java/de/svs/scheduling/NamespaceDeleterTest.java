@@ -0,0 +1,66 @@
+package de.svs.scheduling;
+
+import de.svs.Namespace;
+import de.svs.QuarkusMongoDbTestResource;
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.kubernetes.client.WithKubernetesTestServer;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@WithKubernetesTestServer
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class NamespaceDeleterTest {
+
+    @Inject
+    NamespaceDeleter namespaceDeleter;
+
+    @Inject
+    KubernetesClient k8sClient;
+
+    @Inject
+    MeterRegistry registry;
+
+    @BeforeEach
+    public void beforeEach() {
+        Namespace.deleteAll();
+        k8sClient.namespaces().delete();
+    }
+
+    @Test
+    void deletesAllNamespacesInKubernetesAndDatabase() {
+        double deletedBefore = registry.get("namespace_cleanup_deletions").tag("result", "deleted").counter().count();
+        double notFoundBefore = registry.get("namespace_cleanup_deletions").tag("result", "not_found").counter().count();
+
+        List<Namespace> namespaces = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Namespace namespace = Namespace.create("deleter-" + i, Instant.now().minus(100, DAYS));
+            namespace.persist();
+            namespaces.add(namespace);
+            if (i % 2 == 0) {
+                k8sClient.resource(new NamespaceBuilder().withNewMetadata().withName(namespace.name).and().build()).create();
+            }
+        }
+
+        List<Namespace> deleted = namespaceDeleter.delete(namespaces);
+
+        assertThat(deleted).hasSize(20);
+        assertThat(Namespace.count()).isZero();
+        assertThat(k8sClient.namespaces().list().getItems()).isEmpty();
+        assertThat(registry.get("namespace_cleanup_deletions").tag("result", "deleted").counter().count() - deletedBefore).isEqualTo(10);
+        assertThat(registry.get("namespace_cleanup_deletions").tag("result", "not_found").counter().count() - notFoundBefore).isEqualTo(10);
+        assertThat(registry.get("namespace_cleanup_phase").tag("phase", "kubernetes").timer().count()).isGreaterThanOrEqualTo(20);
+    }
+}
@@ -0,0 +1,95 @@
+package de.svs.scheduling;
+
+import de.svs.Namespace;
+import de.svs.QuarkusMongoDbTestResource;
+import de.svs.cache.NamespaceActivationCache;
+import de.svs.cache.NamespaceActivationChanged;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static java.time.temporal.ChronoUnit.HOURS;
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class NamespaceExpirySchedulerTest {
+
+    @Inject
+    NamespaceExpiryScheduler namespaceExpiryScheduler;
+
+    @Inject
+    NamespaceActivationCache namespaceActivationCache;
+
+    @Inject
+    ExpiredNamespaces expiredNamespaces;
+
+    @Test
+    void firesWhenActivatedUntilHasPassed() {
+        String name = UUID.randomUUID().toString();
+        Instant activatedUntil = Instant.now().plus(1, SECONDS);
+        Namespace namespace = Namespace.extendOrCreate(name, activatedUntil);
+        namespaceActivationCache.put(namespace);
+
+        assertThat(namespaceExpiryScheduler.scheduledAt(name, NamespaceExpiryScheduler.Kind.DEACTIVATION)).isNotNull();
+        assertThat(namespaceExpiryScheduler.scheduledAt(name, NamespaceExpiryScheduler.Kind.DELETION))
+                .isEqualTo(namespace.activatedUntil.plus(30, DAYS));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> expiredNamespaces.contains(name));
+        assertThat(namespaceExpiryScheduler.scheduledAt(name, NamespaceExpiryScheduler.Kind.DEACTIVATION)).isNull();
+    }
+
+    @Test
+    void extensionPostponesExpiry() throws InterruptedException {
+        String name = UUID.randomUUID().toString();
+        namespaceActivationCache.put(Namespace.extendOrCreate(name, Instant.now().plus(1, SECONDS)));
+        namespaceActivationCache.put(Namespace.extendActivatedUntil(name, Instant.now().plus(1, DAYS)).orElseThrow());
+
+        Thread.sleep(2000);
+
+        assertThat(expiredNamespaces.contains(name)).isFalse();
+        assertThat(namespaceExpiryScheduler.scheduledAt(name, NamespaceExpiryScheduler.Kind.DEACTIVATION))
+                .isAfter(Instant.now().plus(23, HOURS));
+    }
+
+    @Test
+    void removalDropsPendingEntries() {
+        String name = UUID.randomUUID().toString();
+        // events of the cache, without the database, so no change stream event can schedule the namespace again
+        namespaceExpiryScheduler.onActivationChanged(new NamespaceActivationChanged(name, Instant.now().plus(2, DAYS)));
+        namespaceExpiryScheduler.onActivationChanged(new NamespaceActivationChanged(name, Instant.now().plus(1, DAYS)));
+        assertThat(namespaceExpiryScheduler.queued(name)).isEqualTo(4);
+
+        namespaceExpiryScheduler.onActivationChanged(new NamespaceActivationChanged(name, null));
+
+        assertThat(namespaceExpiryScheduler.queued(name)).isZero();
+        assertThat(namespaceExpiryScheduler.scheduledAt(name, NamespaceExpiryScheduler.Kind.DEACTIVATION)).isNull();
+        assertThat(namespaceExpiryScheduler.scheduledAt(name, NamespaceExpiryScheduler.Kind.DELETION)).isNull();
+    }
+
+    @ApplicationScoped
+    static class ExpiredNamespaces {
+
+        private final Set<String> names = ConcurrentHashMap.newKeySet();
+
+        void onExpired(@Observes NamespaceExpired event) {
+            names.add(event.name());
+        }
+
+        boolean contains(String name) {
+            return names.contains(name);
+        }
+    }
+}
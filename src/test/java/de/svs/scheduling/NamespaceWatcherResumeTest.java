@@ -0,0 +1,123 @@
+package de.svs.scheduling;
+
+import de.svs.Namespace;
+import de.svs.QuarkusMongoDbTestResource;
+import de.svs.ResumeToken;
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+import io.fabric8.kubernetes.api.model.NamespaceListBuilder;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
+import io.fabric8.kubernetes.api.model.WatchEvent;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.kubernetes.client.KubernetesTestServer;
+import io.quarkus.test.kubernetes.client.WithKubernetesTestServer;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Runs the watch against a mock server with expectations, so the resourceVersion of every request is checked.
+ */
+@WithKubernetesTestServer(crud = false)
+@QuarkusTest
+@TestProfile(NamespaceWatcherResumeTest.FastRetries.class)
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class NamespaceWatcherResumeTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @KubernetesTestServer
+    KubernetesServer mockServer;
+
+    @Inject
+    NamespaceWatcher namespaceWatcher;
+
+    @AfterEach
+    void afterEach() {
+        namespaceWatcher.stopWatching();
+        ResumeToken.clear(NamespaceWatcher.RESUME_TOKEN_ID);
+    }
+
+    @Test
+    void resumesFromPersistedResourceVersion() {
+        String name = UUID.randomUUID().toString();
+        Namespace.create(name, Instant.now()).persist();
+        ResumeToken.save(NamespaceWatcher.RESUME_TOKEN_ID, "4711");
+        mockServer.expect().get()
+                .withPath("/api/v1/namespaces?resourceVersion=4711&allowWatchBookmarks=true&watch=true")
+                .andUpgradeToWebSocket()
+                .open()
+                .waitFor(100).andEmit(new WatchEvent(k8sNamespace(name, "4712"), "DELETED"))
+                .done()
+                .once();
+
+        namespaceWatcher.startWatching();
+
+        await().atMost(TIMEOUT).until(() -> Namespace.findByName(name).isEmpty());
+        await().atMost(TIMEOUT).until(() -> ResumeToken.load(NamespaceWatcher.RESUME_TOKEN_ID).equals(Optional.of("4712")));
+    }
+
+    @Test
+    void startsOverFromCurrentResourceVersionAfterGone() {
+        String name = UUID.randomUUID().toString();
+        Namespace.create(name, Instant.now()).persist();
+        ResumeToken.save(NamespaceWatcher.RESUME_TOKEN_ID, "1");
+        mockServer.expect().get()
+                .withPath("/api/v1/namespaces?resourceVersion=1&allowWatchBookmarks=true&watch=true")
+                .andUpgradeToWebSocket()
+                .open()
+                .waitFor(100).andEmit(new WatchEvent(new StatusBuilder()
+                        .withCode(410)
+                        .withReason("Expired")
+                        .withMessage("too old resource version: 1")
+                        .build(), "ERROR"))
+                .done()
+                .once();
+        mockServer.expect().get()
+                .withPath("/api/v1/namespaces?limit=1")
+                .andReturn(200, new NamespaceListBuilder().withNewMetadata().withResourceVersion("99").endMetadata().build())
+                .once();
+        mockServer.expect().get()
+                .withPath("/api/v1/namespaces?resourceVersion=99&allowWatchBookmarks=true&watch=true")
+                .andUpgradeToWebSocket()
+                .open()
+                .waitFor(100).andEmit(new WatchEvent(k8sNamespace(name, "100"), "DELETED"))
+                .done()
+                .once();
+
+        namespaceWatcher.startWatching();
+
+        await().atMost(TIMEOUT).until(() -> Namespace.findByName(name).isEmpty());
+        await().atMost(TIMEOUT).until(() -> ResumeToken.load(NamespaceWatcher.RESUME_TOKEN_ID).equals(Optional.of("100")));
+    }
+
+    private static io.fabric8.kubernetes.api.model.Namespace k8sNamespace(String name, String resourceVersion) {
+        return new NamespaceBuilder()
+                .withNewMetadata()
+                .withName(name)
+                .withResourceVersion(resourceVersion)
+                .and()
+                .build();
+    }
+
+    public static class FastRetries implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "namespace.watch.retryDelay", "100ms",
+                    "namespace.watch.persistInterval", "0s");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package de.svs.scheduling;
+
+import de.svs.Namespace;
+import de.svs.QuarkusMongoDbTestResource;
+import de.svs.cache.NamespaceActivationCache;
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+import io.fabric8.kubernetes.client.Watcher;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.kubernetes.client.WithKubernetesTestServer;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@WithKubernetesTestServer
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class NamespaceWatcherTest {
+
+    @Inject
+    NamespaceWatcher namespaceWatcher;
+
+    @Inject
+    NamespaceActivationCache namespaceActivationCache;
+
+    @BeforeEach
+    public void beforeEach() {
+        Namespace.deleteAll();
+        namespaceActivationCache.reload();
+    }
+
+    @Test
+    void deletedNamespaceIsRemovedFromDatabaseAndCache() {
+        Namespace namespace = Namespace.create("deletedInK8s", Instant.now());
+        namespace.persist();
+        namespaceActivationCache.put(namespace);
+
+        namespaceWatcher.eventReceived(Watcher.Action.DELETED, k8sNamespace("deletedInK8s", "42"));
+
+        assertThat(Namespace.findByName("deletedInK8s")).isEmpty();
+        assertThat(namespaceActivationCache.cached("deletedInK8s")).isNull();
+    }
+
+    @Test
+    void protectedNamespaceIsKept() {
+        Namespace namespace = Namespace.create("main", Instant.now());
+        namespace.persist();
+
+        namespaceWatcher.eventReceived(Watcher.Action.DELETED, k8sNamespace("main", "43"));
+
+        assertThat(Namespace.findByName("main")).isNotEmpty();
+    }
+
+    @Test
+    void createdNamespaceIsNotRegisteredByDefault() {
+        namespaceWatcher.eventReceived(Watcher.Action.ADDED, k8sNamespace("createdInK8s", "44"));
+
+        assertThat(Namespace.findByName("createdInK8s")).isEmpty();
+    }
+
+    private static io.fabric8.kubernetes.api.model.Namespace k8sNamespace(String name, String resourceVersion) {
+        return new NamespaceBuilder()
+                .withNewMetadata()
+                .withName(name)
+                .withResourceVersion(resourceVersion)
+                .and()
+                .build();
+    }
+}
@@ -0,0 +1,118 @@
+package de.svs.status;
+
+import de.svs.QuarkusMongoDbTestResource;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResourceBuilder;
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.api.model.apps.DeploymentStatusBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.kubernetes.client.WithKubernetesTestServer;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@WithKubernetesTestServer
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class DeploymentReadinessTest {
+
+    @Inject
+    DeploymentReadiness deploymentReadiness;
+
+    @Inject
+    KubernetesClient k8sClient;
+
+    @Test
+    void reportsProgressUntilAllDeploymentsAreReady() {
+        String namespace = "ns-" + UUID.randomUUID();
+        k8sClient.resource(new NamespaceBuilder().withNewMetadata().withName(namespace).endMetadata().build()).create();
+        Deployment api = createDeployment(namespace, "api");
+        Deployment web = createDeployment(namespace, "web");
+
+        AssertSubscriber<StatusDto> subscriber = deploymentReadiness.watch(namespace)
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        subscriber.awaitItems(1, Duration.ofSeconds(10));
+        assertThat(subscriber.getItems().getFirst().message()).isEqualTo("0/2 deployments ready");
+
+        markReady(api);
+        subscriber.awaitItems(2, Duration.ofSeconds(10));
+        assertThat(subscriber.getItems().get(1).message()).isEqualTo("1/2 deployments ready");
+        assertThat(subscriber.getItems().get(1).finalMessage()).isFalse();
+
+        markReady(web);
+        subscriber.awaitCompletion(Duration.ofSeconds(10));
+        StatusDto last = subscriber.getLastItem();
+        assertThat(last.success()).isTrue();
+        assertThat(last.finalMessage()).isTrue();
+        assertThat(last.namespaceBaseUri()).isEqualTo("https://" + namespace + ".brb.dbildungscloud.dev");
+    }
+
+    @Test
+    void deploymentsScaledToZeroOnPurposeAreReady() {
+        String namespace = "ns-" + UUID.randomUUID();
+        k8sClient.resource(new NamespaceBuilder().withNewMetadata().withName(namespace).endMetadata().build()).create();
+        markReady(createDeployment(namespace, "api"));
+        createDeployment(namespace, "debug-tools", 0);
+
+        AssertSubscriber<StatusDto> subscriber = deploymentReadiness.watch(namespace)
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+
+        subscriber.awaitCompletion(Duration.ofSeconds(10));
+        assertThat(subscriber.getLastItem().finalMessage()).isTrue();
+        assertThat(subscriber.getLastItem().message()).isEqualTo("available!");
+    }
+
+    @Test
+    void deploymentsScaledToZeroByKedaAreNotReady() {
+        String namespace = "ns-" + UUID.randomUUID();
+        k8sClient.resource(new NamespaceBuilder().withNewMetadata().withName(namespace).endMetadata().build()).create();
+        markReady(createDeployment(namespace, "api"));
+        createDeployment(namespace, "web", 0);
+        k8sClient.genericKubernetesResources(DeploymentReadiness.SCALED_OBJECTS).inNamespace(namespace)
+                .resource(new GenericKubernetesResourceBuilder()
+                        .withApiVersion("keda.sh/v1alpha1")
+                        .withKind("ScaledObject")
+                        .withNewMetadata().withName("web").withNamespace(namespace).endMetadata()
+                        .addToAdditionalProperties("spec", Map.of("scaleTargetRef", Map.of("name", "web")))
+                        .build())
+                .create();
+
+        AssertSubscriber<StatusDto> subscriber = deploymentReadiness.watch(namespace)
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+
+        subscriber.awaitItems(1, Duration.ofSeconds(10));
+        assertThat(subscriber.getItems().getFirst().message()).isEqualTo("1/2 deployments ready");
+        assertThat(subscriber.getItems().getFirst().finalMessage()).isFalse();
+        subscriber.cancel();
+    }
+
+    private Deployment createDeployment(String namespace, String name) {
+        return createDeployment(namespace, name, 1);
+    }
+
+    private Deployment createDeployment(String namespace, String name, int replicas) {
+        Deployment deployment = new DeploymentBuilder()
+                .withNewMetadata().withName(name).withNamespace(namespace).endMetadata()
+                .withNewSpec().withReplicas(replicas).endSpec()
+                .build();
+        return k8sClient.resource(deployment).create();
+    }
+
+    private void markReady(Deployment deployment) {
+        Deployment current = k8sClient.apps().deployments()
+                .inNamespace(deployment.getMetadata().getNamespace())
+                .withName(deployment.getMetadata().getName())
+                .get();
+        current.setStatus(new DeploymentStatusBuilder().withReplicas(1).withReadyReplicas(1).build());
+        k8sClient.resource(current).updateStatus();
+    }
+}
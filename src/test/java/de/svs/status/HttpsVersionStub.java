@@ -0,0 +1,76 @@
+package de.svs.status;
+
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsParameters;
+import com.sun.net.httpserver.HttpsServer;
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTPS server answering /version like the version aggregator of a namespace does.
+ * Counts the connections (and thereby TLS handshakes) it has accepted.
+ */
+public class HttpsVersionStub implements QuarkusTestResourceLifecycleManager {
+
+    static final AtomicInteger connections = new AtomicInteger();
+    static final AtomicInteger requests = new AtomicInteger();
+    static volatile String versionJson = "{\"services-unavailable\": false}";
+
+    private HttpsServer server;
+
+    @Override
+    public Map<String, String> start() {
+        try {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            try (InputStream inputStream = HttpsVersionStub.class.getResourceAsStream("/status-stub.p12")) {
+                keyStore.load(inputStream, "changeit".toCharArray());
+            }
+            KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagerFactory.init(keyStore, "changeit".toCharArray());
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+
+            server = HttpsServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setHttpsConfigurator(new HttpsConfigurator(sslContext) {
+                @Override
+                public void configure(HttpsParameters params) {
+                    // called once for every new connection
+                    connections.incrementAndGet();
+                    super.configure(params);
+                }
+            });
+            server.createContext("/version", exchange -> {
+                requests.incrementAndGet();
+                byte[] body = versionJson.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.start();
+        } catch (Exception e) {
+            throw new IllegalStateException("could not start https stub", e);
+        }
+        return Map.of(
+                "status.server", "localhost:" + server.getAddress().getPort(),
+                "status.trustAll", "true",
+                "baseDomain", ".namespaces.test");
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package de.svs.status;
+
+import de.svs.QuarkusMongoDbTestResource;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.when;
+
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+class NamespaceStatusProbesTest {
+
+    private static final int WAITERS = 50;
+
+    @Inject
+    NamespaceStatusProbes namespaceStatusProbes;
+
+    @Test
+    void concurrentWaitersShareOneProbe() throws InterruptedException {
+        String namespace = UUID.randomUUID().toString();
+        AtomicInteger requests = new AtomicInteger();
+        installStatus(namespace, requests, new AtomicBoolean());
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<AssertSubscriber<StatusDto>> waiters = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(WAITERS)) {
+            for (int i = 0; i < WAITERS; i++) {
+                AssertSubscriber<StatusDto> waiter = AssertSubscriber.create(Long.MAX_VALUE);
+                waiters.add(waiter);
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    namespaceStatusProbes.probe(namespace).subscribe().withSubscriber(waiter);
+                });
+            }
+            start.countDown();
+        }
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> waiters.stream().allMatch(waiter -> waiter.getItems().size() >= 2));
+        int maxItemsPerWaiter = waiters.stream().mapToInt(waiter -> waiter.getItems().size()).max().orElseThrow();
+        // one polling loop: every request is one item for all waiters, one more may be in flight
+        assertThat(requests.get()).isLessThanOrEqualTo(maxItemsPerWaiter + 1);
+        assertThat(namespaceStatusProbes.activeProbes()).isEqualTo(1);
+
+        waiters.forEach(AssertSubscriber::cancel);
+        assertThat(namespaceStatusProbes.activeProbes()).isZero();
+    }
+
+    @Test
+    void waiterArrivingAfterTheFinalMessageGetsItsOwn() {
+        String namespace = UUID.randomUUID().toString();
+        AtomicBoolean available = new AtomicBoolean(true);
+        installStatus(namespace, new AtomicInteger(), available);
+
+        AssertSubscriber<StatusDto> first = namespaceStatusProbes.probe(namespace)
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        first.awaitCompletion(Duration.ofSeconds(10));
+        assertThat(first.getLastItem().finalMessage()).isTrue();
+
+        AssertSubscriber<StatusDto> second = namespaceStatusProbes.probe(namespace)
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        second.awaitCompletion(Duration.ofSeconds(10));
+        assertThat(second.getLastItem().finalMessage()).isTrue();
+        assertThat(namespaceStatusProbes.activeProbes()).isZero();
+    }
+
+    private static void installStatus(String namespace, AtomicInteger requests, AtomicBoolean available) {
+        NamespaceStatus namespaceStatus = Mockito.mock(NamespaceStatus.class);
+        when(namespaceStatus.get(namespace)).thenReturn(Uni.createFrom().item(() -> {
+            requests.incrementAndGet();
+            return new StatusDto(namespace, available.get() ? "available!" : "/version is available ...",
+                    "https://" + namespace, true, available.get());
+        }));
+        QuarkusMock.installMockForType(namespaceStatus, NamespaceStatus.class);
+    }
+}
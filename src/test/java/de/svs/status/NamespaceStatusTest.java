@@ -0,0 +1,67 @@
+package de.svs.status;
+
+import de.svs.QuarkusMongoDbTestResource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@QuarkusTest
+@WithTestResource(QuarkusMongoDbTestResource.ContainerResource.class)
+@WithTestResource(HttpsVersionStub.class)
+class NamespaceStatusTest {
+
+    @Inject
+    NamespaceStatus namespaceStatus;
+
+    @Inject
+    MeterRegistry registry;
+
+    @BeforeEach
+    void beforeEach() {
+        HttpsVersionStub.versionJson = "{\"services-unavailable\": false}";
+    }
+
+    @Test
+    void namespaceIsAvailable() {
+        StatusDto statusDto = namespaceStatus.get("available").await().atMost(Duration.ofSeconds(10));
+
+        assertThat(statusDto.success()).isTrue();
+        assertThat(statusDto.finalMessage()).isTrue();
+        assertThat(statusDto.namespaceBaseUri()).isEqualTo("https://available.namespaces.test");
+    }
+
+    @Test
+    void namespaceIsStillStarting() {
+        HttpsVersionStub.versionJson = "{\"services-unavailable\": true}";
+
+        StatusDto statusDto = namespaceStatus.get("starting").await().atMost(Duration.ofSeconds(10));
+
+        assertThat(statusDto.success()).isTrue();
+        assertThat(statusDto.finalMessage()).isFalse();
+    }
+
+    @Test
+    void connectionIsReusedAcrossTicks() {
+        // warm up, so a connection to the stub exists
+        namespaceStatus.get("reused").await().atMost(Duration.ofSeconds(10));
+        int connectionsBefore = HttpsVersionStub.connections.get();
+        double handshakesBefore = registry.counter("namespace_status_tls_handshakes").count();
+        int requestsBefore = HttpsVersionStub.requests.get();
+
+        for (int i = 0; i < 5; i++) {
+            namespaceStatus.get("reused").await().atMost(Duration.ofSeconds(10));
+        }
+
+        assertThat(HttpsVersionStub.requests.get() - requestsBefore).isEqualTo(5);
+        assertThat(HttpsVersionStub.connections.get()).isEqualTo(connectionsBefore);
+        assertThat(registry.counter("namespace_status_tls_handshakes").count()).isEqualTo(handshakesBefore);
+        assertThat(registry.timer("namespace_status_probe").count()).isGreaterThanOrEqualTo(6);
+    }
+}
@@ -0,0 +1,37 @@
+package de.svs.status;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PollingPolicyTest {
+
+    @Test
+    void firstProbeIsImmediate() {
+        PollingPolicy policy = new PollingPolicy(Duration.ofMillis(250), Duration.ofSeconds(10), 2, 0.2);
+
+        assertThat(policy.delayBefore(0)).isZero();
+    }
+
+    @Test
+    void delayGrowsExponentiallyUpToTheCeiling() {
+        PollingPolicy policy = new PollingPolicy(Duration.ofMillis(250), Duration.ofSeconds(10), 2, 0);
+
+        assertThat(policy.delayBefore(1)).isEqualTo(Duration.ofMillis(250));
+        assertThat(policy.delayBefore(2)).isEqualTo(Duration.ofMillis(500));
+        assertThat(policy.delayBefore(5)).isEqualTo(Duration.ofSeconds(4));
+        assertThat(policy.delayBefore(7)).isEqualTo(Duration.ofSeconds(10));
+        assertThat(policy.delayBefore(100)).isEqualTo(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void jitterNeverExceedsTheCeiling() {
+        PollingPolicy policy = new PollingPolicy(Duration.ofMillis(250), Duration.ofSeconds(10), 2, 0.5);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(policy.delayBefore(20)).isBetween(Duration.ofSeconds(5), Duration.ofSeconds(10));
+        }
+    }
+}